@@ -0,0 +1,61 @@
+package com.containers;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * GenericList.sort / parallelSort on random and presorted input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GenericListSortBenchmark {
+    private static final Comparator<Long> ORDER = Comparator.naturalOrder();
+
+    @Param({ "10000", "500000" })
+    int size;
+
+    @Param({ "random", "sorted" })
+    String shape;
+
+    private Long[] source;
+    private GenericList<Long> list;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random rnd = new Random(42);
+        source = new Long[size];
+        for (int i = 0; i < size; i++)
+            source[i] = "sorted".equals(shape) ? (long) i : rnd.nextLong();
+    }
+
+    @Setup(Level.Invocation)
+    public void fill() {
+        list = new GenericList<>();
+        for (Long v : source)
+            list.add(v);
+    }
+
+    @Benchmark
+    public GenericList<Long> sort() {
+        list.sort(ORDER);
+        return list;
+    }
+
+    @Benchmark
+    public GenericList<Long> parallelSort() {
+        list.parallelSort(ORDER);
+        return list;
+    }
+}
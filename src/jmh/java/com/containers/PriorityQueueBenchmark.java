@@ -0,0 +1,77 @@
+package com.containers;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * PriorityQueueCustom build/drain paths against java.util.PriorityQueue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PriorityQueueBenchmark {
+    private static final Comparator<Long> DESC = Comparator.reverseOrder();
+
+    @Param({ "100000", "1000000" })
+    int size;
+
+    @Param({ "2", "4" })
+    int arity;
+
+    private List<Long> values;
+
+    @Setup
+    public void generate() {
+        Random rnd = new Random(7);
+        Long[] a = new Long[size];
+        for (int i = 0; i < size; i++)
+            a[i] = rnd.nextLong();
+        values = Arrays.asList(a);
+    }
+
+    @Benchmark
+    public void addThenDrain(Blackhole bh) {
+        PriorityQueueCustom<Long> pq = new PriorityQueueCustom<>(DESC, arity);
+        for (Long v : values)
+            pq.add(v);
+        while (!pq.isEmpty())
+            bh.consume(pq.remove());
+    }
+
+    @Benchmark
+    public void heapifyThenDrain(Blackhole bh) {
+        PriorityQueueCustom<Long> pq = new PriorityQueueCustom<>(DESC, arity);
+        pq.addAll(values);
+        while (!pq.isEmpty())
+            bh.consume(pq.remove());
+    }
+
+    @Benchmark
+    public GenericList<Long> topK100() {
+        PriorityQueueCustom<Long> pq = PriorityQueueCustom.topK(100, DESC);
+        for (Long v : values)
+            pq.add(v);
+        return pq.toSortedList();
+    }
+
+    @Benchmark
+    public void jdkAddThenDrain(Blackhole bh) {
+        java.util.PriorityQueue<Long> pq = new java.util.PriorityQueue<>(DESC);
+        pq.addAll(values);
+        while (!pq.isEmpty())
+            bh.consume(pq.poll());
+    }
+}
@@ -0,0 +1,73 @@
+package com.containers;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * FIFO and double-ended throughput of Queue/Deque per StorageMode, with
+ * java.util.ArrayDeque as the baseline. Each invocation pushes a batch and
+ * drains it, so steady-state (already grown) storage is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueueThroughputBenchmark {
+    private static final int BATCH = 1024;
+
+    @Param({ "RING_BUFFER", "LINKED_LIST" })
+    StorageMode mode;
+
+    private Queue<Integer> queue;
+    private Deque<Integer> deque;
+    private ArrayDeque<Integer> jdk;
+    private final Integer item = 17;
+
+    @Setup
+    public void create() {
+        queue = new Queue<>(mode);
+        deque = new Deque<>(mode);
+        jdk = new ArrayDeque<>();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void queueFifo(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++)
+            queue.enqueue(item);
+        for (int i = 0; i < BATCH; i++)
+            bh.consume(queue.dequeue());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void dequeBothEnds(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            if ((i & 1) == 0)
+                deque.addFirst(item);
+            else
+                deque.addLast(item);
+        }
+        for (int i = 0; i < BATCH; i++)
+            bh.consume((i & 1) == 0 ? deque.removeLast() : deque.removeFirst());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void arrayDequeFifo(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++)
+            jdk.addLast(item);
+        for (int i = 0; i < BATCH; i++)
+            bh.consume(jdk.pollFirst());
+    }
+}
@@ -0,0 +1,56 @@
+package com.containers;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * ListContainer.stream() pipelines of the shape SysOpsApp uses (filter,
+ * mapToLong/sum, count) over array- and ring-backed containers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamPipelineBenchmark {
+
+    @Param({ "100000", "1000000" })
+    int size;
+
+    private GenericList<Long> list;
+    private Queue<Long> queue;
+
+    @Setup
+    public void fill() {
+        Random rnd = new Random(3);
+        list = new GenericList<>();
+        queue = new Queue<>();
+        for (int i = 0; i < size; i++) {
+            long v = rnd.nextInt(1 << 20);
+            list.add(v);
+            queue.enqueue(v);
+        }
+    }
+
+    @Benchmark
+    public long listFilterCount() {
+        return list.stream().filter(v -> v > (1 << 19)).count();
+    }
+
+    @Benchmark
+    public long listSum() {
+        return list.stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    public long queueSum() {
+        return queue.stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,82 @@
+package com.sysops;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * End-to-end loadDirectory / analyzePath against a generated tree. Console
+ * output is discarded so only the command work is measured; the OS page and
+ * dentry caches are warm after the first iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SysOpsBenchmark {
+
+    @Param({ "1000", "100000" })
+    int filesPerDir;
+
+    @Param({ "4" })
+    int fanout;
+
+    @Param({ "1" })
+    int depth;
+
+    private Path root;
+    private PrintStream originalOut;
+
+    @Setup
+    public void createTree() throws IOException {
+        root = TreeFixture.create(filesPerDir, fanout, depth);
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        SysOpsApp.openDirectory(root.toFile());
+        SysOpsApp.fillView();
+    }
+
+    @TearDown
+    public void deleteTree() throws IOException {
+        System.setOut(originalOut);
+        TreeFixture.delete(root);
+    }
+
+    @Benchmark
+    public void loadDirectory() {
+        SysOpsApp.reloadDirectory(root.toFile());
+        SysOpsApp.fillView();
+    }
+
+    // What cd/startup pay before the prompt: the first page only
+    @Benchmark
+    public void loadFirstPage() {
+        SysOpsApp.reloadDirectory(root.toFile());
+    }
+
+    @Benchmark
+    public void loadDirectoryCached() {
+        SysOpsApp.loadDirectory(root.toFile());
+    }
+
+    @Benchmark
+    public void analyzeCurrent() {
+        SysOpsApp.analyzePath(null);
+    }
+
+    @Benchmark
+    public void analyzeSubdirectory() {
+        SysOpsApp.analyzePath(depth > 0 ? "dir0" : ".");
+    }
+}
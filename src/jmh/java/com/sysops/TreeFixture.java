@@ -0,0 +1,64 @@
+package com.sysops;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+/**
+ * Generates a throwaway directory tree for the end-to-end benchmarks. Files
+ * are sparse (length set, no data written) so large trees are cheap to build.
+ */
+final class TreeFixture {
+    private static final String[] EXTENSIONS = { "log", "txt", "java", "class", "json", "gz", "" };
+
+    private TreeFixture() {
+    }
+
+    /**
+     * @param filesPerDir regular files in every directory
+     * @param fanout      subdirectories per directory
+     * @param depth       levels below the root (0 = flat)
+     */
+    static Path create(int filesPerDir, int fanout, int depth) throws IOException {
+        Path root = Files.createTempDirectory("sysops-bench");
+        populate(root, filesPerDir, fanout, depth, new Random(11));
+        return root;
+    }
+
+    private static void populate(Path dir, int files, int fanout, int depth, Random rnd) throws IOException {
+        for (int i = 0; i < files; i++) {
+            String ext = EXTENSIONS[rnd.nextInt(EXTENSIONS.length)];
+            Path f = dir.resolve("file" + i + (ext.isEmpty() ? "" : "." + ext));
+            try (RandomAccessFile raf = new RandomAccessFile(f.toFile(), "rw")) {
+                raf.setLength(rnd.nextInt(1 << 16));
+            }
+        }
+        if (depth == 0)
+            return;
+        for (int d = 0; d < fanout; d++) {
+            Path sub = Files.createDirectory(dir.resolve("dir" + d));
+            populate(sub, files, fanout, depth - 1, rnd);
+        }
+    }
+
+    static void delete(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
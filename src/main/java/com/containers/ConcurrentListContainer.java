@@ -0,0 +1,69 @@
+package com.containers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Shared plumbing for the thread-safe containers. They keep their own
+ * lock-free node/array structures, so unlike {@link ListContainer} there is
+ * no backing list and no positional access: queries run over a weakly
+ * consistent traversal, and sizes are estimates under concurrent
+ * modification.
+ */
+abstract class ConcurrentListContainer<T> {
+
+    /**
+     * Weakly consistent copy of the contents in storage order (for the
+     * work-stealing deque, top to bottom).
+     */
+    abstract List<T> snapshot();
+
+    public abstract int size();
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public abstract void clear();
+
+    public abstract void add(T element);
+
+    public abstract T remove(); // remove according to policy
+
+    public abstract T peek(); // peek according to policy
+
+    public boolean contains(T value) {
+        return snapshot().contains(value);
+    }
+
+    public Spliterator<T> spliterator() {
+        return snapshot().spliterator();
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    public void forEach(Consumer<? super T> action) {
+        snapshot().forEach(action);
+    }
+
+    @Override
+    public String toString() {
+        List<T> snap = snapshot();
+        return String.format("%s(size=%d) %s",
+                this.getClass().getSimpleName(), snap.size(), snap.toString());
+    }
+
+    static <T> List<T> newSnapshot() {
+        return new ArrayList<>();
+    }
+}
@@ -0,0 +1,150 @@
+package com.containers;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free multi-producer/multi-consumer FIFO queue (Michael-Scott). Size is
+ * tracked with a striped LongAdder so producers and consumers do not contend
+ * on a single counter.
+ */
+public class ConcurrentQueue<T> extends ConcurrentListContainer<T> {
+
+    private static final class Node<T> {
+        volatile T item;
+        volatile Node<T> next;
+
+        Node(T item) {
+            this.item = item;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentQueue, Node> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentQueue.class, Node.class, "head");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentQueue, Node> TAIL =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentQueue.class, Node.class, "tail");
+
+    // head is a sentinel; the first element is head.next
+    private volatile Node<T> head;
+    private volatile Node<T> tail;
+    private final LongAdder count = new LongAdder();
+
+    public ConcurrentQueue() {
+        Node<T> sentinel = new Node<>(null);
+        this.head = sentinel;
+        this.tail = sentinel;
+    }
+
+    public void enqueue(T element) {
+        Objects.requireNonNull(element);
+        Node<T> node = new Node<>(element);
+        while (true) {
+            Node<T> t = tail;
+            Node<T> next = t.next;
+            if (t != tail)
+                continue;
+            if (next == null) {
+                if (NEXT.compareAndSet(t, null, node)) {
+                    TAIL.compareAndSet(this, t, node); // may fail; someone else helped
+                    count.increment();
+                    return;
+                }
+            } else {
+                TAIL.compareAndSet(this, t, next); // help a lagging tail forward
+            }
+        }
+    }
+
+    /**
+     * Removes the head element, or returns null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        while (true) {
+            Node<T> h = head;
+            Node<T> t = tail;
+            Node<T> next = h.next;
+            if (h != head)
+                continue;
+            if (next == null)
+                return null;
+            if (h == t) {
+                TAIL.compareAndSet(this, t, next);
+                continue;
+            }
+            T val = next.item;
+            if (HEAD.compareAndSet(this, h, next)) {
+                next.item = null; // next becomes the new sentinel
+                count.decrement();
+                return val;
+            }
+        }
+    }
+
+    public T dequeue() {
+        T val = poll();
+        if (val == null)
+            throw new NoSuchElementException("dequeue from empty ConcurrentQueue");
+        return val;
+    }
+
+    @Override
+    public T peek() {
+        while (true) {
+            Node<T> first = head.next;
+            if (first == null)
+                throw new NoSuchElementException("peek from empty ConcurrentQueue");
+            T val = first.item;
+            if (val != null)
+                return val;
+            // first was dequeued concurrently; retry from the new head
+        }
+    }
+
+    @Override
+    public void add(T element) {
+        enqueue(element);
+    }
+
+    @Override
+    public T remove() {
+        return dequeue();
+    }
+
+    @Override
+    public int size() {
+        long n = count.sum();
+        return n <= 0 ? 0 : (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+            // drain
+        }
+    }
+
+    @Override
+    List<T> snapshot() {
+        List<T> snap = newSnapshot();
+        for (Node<T> n = head.next; n != null; n = n.next) {
+            T val = n.item;
+            if (val != null)
+                snap.add(val);
+        }
+        return snap;
+    }
+}
@@ -0,0 +1,102 @@
+package com.containers;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free LIFO stack (Treiber). Push and pop are a single CAS on the top
+ * pointer; size is tracked with a striped LongAdder.
+ */
+public class ConcurrentStack<T> extends ConcurrentListContainer<T> {
+
+    private static final class Node<T> {
+        final T item;
+        Node<T> next;
+
+        Node(T item) {
+            this.item = item;
+        }
+    }
+
+    private final AtomicReference<Node<T>> top = new AtomicReference<>();
+    private final LongAdder count = new LongAdder();
+
+    public void push(T element) {
+        Objects.requireNonNull(element);
+        Node<T> node = new Node<>(element);
+        Node<T> cur;
+        do {
+            cur = top.get();
+            node.next = cur;
+        } while (!top.compareAndSet(cur, node));
+        count.increment();
+    }
+
+    /**
+     * Removes the top element, or returns null if the stack is empty.
+     */
+    public T tryPop() {
+        Node<T> cur;
+        do {
+            cur = top.get();
+            if (cur == null)
+                return null;
+        } while (!top.compareAndSet(cur, cur.next));
+        count.decrement();
+        return cur.item;
+    }
+
+    public T pop() {
+        T val = tryPop();
+        if (val == null)
+            throw new NoSuchElementException("pop from empty ConcurrentStack");
+        return val;
+    }
+
+    @Override
+    public T peek() {
+        Node<T> cur = top.get();
+        if (cur == null)
+            throw new NoSuchElementException("peek from empty ConcurrentStack");
+        return cur.item;
+    }
+
+    @Override
+    public void add(T element) {
+        push(element);
+    }
+
+    @Override
+    public T remove() {
+        return pop();
+    }
+
+    @Override
+    public int size() {
+        long n = count.sum();
+        return n <= 0 ? 0 : (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return top.get() == null;
+    }
+
+    @Override
+    public void clear() {
+        while (tryPop() != null) {
+            // drain so the counter stays balanced
+        }
+    }
+
+    @Override
+    List<T> snapshot() {
+        List<T> snap = newSnapshot();
+        for (Node<T> n = top.get(); n != null; n = n.next)
+            snap.add(n.item);
+        return snap;
+    }
+}
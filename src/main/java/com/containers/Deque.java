@@ -1,57 +1,67 @@
 package com.containers;
 
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
- * Double-ended queue with O(1) operations at both ends.
+ * Double-ended queue with O(1) operations at both ends. Ring-buffer backed by
+ * default; see {@link StorageMode}.
  */
 public class Deque<T> extends ListContainer<T> {
+    private final DequeStorage<T> storage;
 
     public Deque() {
-        this.elements = new LinkedList<>();
+        this(StorageMode.RING_BUFFER);
+    }
+
+    public Deque(StorageMode mode) {
+        this.storage = Objects.requireNonNull(mode).newDequeStorage();
+        this.elements = storage;
         this.size = 0;
     }
 
     public void addFirst(T element) {
         Objects.requireNonNull(element);
-        ((LinkedList<T>) elements).addFirst(element);
+        storage.addFirst(element);
         size++;
+        modCount++;
     }
 
     public void addLast(T element) {
         Objects.requireNonNull(element);
-        ((LinkedList<T>) elements).addLast(element);
+        storage.addLast(element);
         size++;
+        modCount++;
     }
 
     public T removeFirst() {
         if (isEmpty())
             throw new NoSuchElementException("removeFirst from empty Deque");
-        T val = ((LinkedList<T>) elements).removeFirst();
+        T val = storage.removeFirst();
         size--;
+        modCount++;
         return val;
     }
 
     public T removeLast() {
         if (isEmpty())
             throw new NoSuchElementException("removeLast from empty Deque");
-        T val = ((LinkedList<T>) elements).removeLast();
+        T val = storage.removeLast();
         size--;
+        modCount++;
         return val;
     }
 
     public T peekFirst() {
         if (isEmpty())
             throw new NoSuchElementException("peekFirst from empty Deque");
-        return ((LinkedList<T>) elements).getFirst();
+        return storage.getFirst();
     }
 
     public T peekLast() {
         if (isEmpty())
             throw new NoSuchElementException("peekLast from empty Deque");
-        return ((LinkedList<T>) elements).getLast();
+        return storage.getLast();
     }
 
     // default add/remove/peek map to back/front semantics:
@@ -0,0 +1,21 @@
+package com.containers;
+
+import java.util.List;
+
+/**
+ * List storage with O(1) operations at both ends. Implemented by RingBuffer
+ * and by a thin LinkedList adapter.
+ */
+interface DequeStorage<T> extends List<T> {
+    void addFirst(T element);
+
+    void addLast(T element);
+
+    T removeFirst();
+
+    T removeLast();
+
+    T getFirst();
+
+    T getLast();
+}
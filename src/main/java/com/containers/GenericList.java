@@ -1,15 +1,15 @@
 package com.containers;
 
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
  * Full-featured list with index-based access, stable merge sort, and common
  * list operations.
- * Array-backed (ArrayList).
+ * Array-backed (ArrayList) by default. Constructed with
+ * {@link StorageMode#RING_BUFFER} it keeps O(1) get/set while addFirst,
+ * removeFirst and inserts near either end become amortized O(1).
  */
 public class GenericList<T> extends ListContainer<T> {
 
@@ -17,10 +17,19 @@ public class GenericList<T> extends ListContainer<T> {
         super(); // elements is an ArrayList by default
     }
 
+    /**
+     * @throws IllegalArgumentException for storage without O(1) indexed access
+     */
+    public GenericList(StorageMode mode) {
+        super();
+        this.elements = Objects.requireNonNull(mode).newListStorage();
+    }
+
     public void addFirst(T element) {
         Objects.requireNonNull(element);
         elements.add(0, element);
         size++;
+        modCount++;
     }
 
     public void addLast(T element) {
@@ -32,6 +41,7 @@ public class GenericList<T> extends ListContainer<T> {
         Objects.requireNonNull(element);
         elements.add(element);
         size++;
+        modCount++;
     }
 
     public void addAt(int index, T element) {
@@ -40,6 +50,7 @@ public class GenericList<T> extends ListContainer<T> {
         Objects.requireNonNull(element);
         elements.add(index, element);
         size++;
+        modCount++;
     }
 
     public T removeFirst() {
@@ -47,6 +58,7 @@ public class GenericList<T> extends ListContainer<T> {
             throw new NoSuchElementException("removeFirst from empty GenericList");
         T val = elements.remove(0);
         size--;
+        modCount++;
         return val;
     }
 
@@ -60,6 +72,7 @@ public class GenericList<T> extends ListContainer<T> {
             throw new NoSuchElementException("remove from empty GenericList");
         T val = elements.remove(size - 1);
         size--;
+        modCount++;
         return val;
     }
 
@@ -68,6 +81,7 @@ public class GenericList<T> extends ListContainer<T> {
             throw new IndexOutOfBoundsException("removeAt index out of range");
         T val = elements.remove(index);
         size--;
+        modCount++;
         return val;
     }
 
@@ -86,51 +100,34 @@ public class GenericList<T> extends ListContainer<T> {
 
     /**
      * Stable merge sort. If comparator is null, T must implement Comparable.
+     * Sorts a snapshot array (insertion sort below a cutoff, ordered runs are
+     * not re-merged) and writes the result back.
      */
     public void sort(Comparator<? super T> comparator) {
         if (size <= 1)
             return;
-        List<T> tmp = new ArrayList<>(size);
-        // ensure tmp size
-        for (int i = 0; i < size; i++)
-            tmp.add(null);
-        mergeSort(0, size - 1, comparator, tmp);
+        Object[] a = elements.toArray();
+        MergeSort.sort(a, MergeSort.comparatorOf(comparator));
+        writeBack(a);
+        modCount++;
     }
 
-    private void mergeSort(int l, int r, Comparator<? super T> comp, List<T> tmp) {
-        if (l >= r)
+    /**
+     * Same contract as {@link #sort(Comparator)}, but large lists are split
+     * across the common ForkJoinPool. Still stable.
+     */
+    public void parallelSort(Comparator<? super T> comparator) {
+        if (size <= 1)
             return;
-        int m = (l + r) >>> 1;
-        mergeSort(l, m, comp, tmp);
-        mergeSort(m + 1, r, comp, tmp);
-        merge(l, m, r, comp, tmp);
+        Object[] a = elements.toArray();
+        MergeSort.parallelSort(a, MergeSort.comparatorOf(comparator));
+        writeBack(a);
+        modCount++;
     }
 
-    private void merge(int l, int m, int r, Comparator<? super T> comp, List<T> tmp) {
-        int i = l, j = m + 1, k = l;
-        while (i <= m && j <= r) {
-            T a = elements.get(i), b = elements.get(j);
-            int cmp;
-            if (comp != null)
-                cmp = comp.compare(a, b);
-            else {
-                @SuppressWarnings("unchecked")
-                Comparable<? super T> ca = (Comparable<? super T>) a;
-                cmp = ca.compareTo(b);
-            }
-            if (cmp <= 0) { // stable: left element preferred when equal
-                tmp.set(k++, a);
-                i++;
-            } else {
-                tmp.set(k++, b);
-                j++;
-            }
-        }
-        while (i <= m)
-            tmp.set(k++, elements.get(i++));
-        while (j <= r)
-            tmp.set(k++, elements.get(j++));
-        for (int idx = l; idx <= r; idx++)
-            elements.set(idx, tmp.get(idx));
+    @SuppressWarnings("unchecked")
+    private void writeBack(Object[] a) {
+        for (int i = 0; i < a.length; i++)
+            elements.set(i, (T) a[i]);
     }
 }
@@ -0,0 +1,200 @@
+package com.containers;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Binary heap that tracks the slot of every element, so an element whose
+ * priority changed can be re-sifted in place ({@link #update(Object)}) and an
+ * arbitrary element can be removed in O(log n). {@link #contains(Object)} is
+ * an O(1) lookup instead of a linear scan.
+ *
+ * Elements must be distinct and their equals/hashCode must not depend on the
+ * fields the comparator reads (identity-equality types such as FileItem are
+ * fine).
+ */
+public class IndexedPriorityQueue<T> extends ListContainer<T> {
+    private final Comparator<? super T> comparator; // null means natural Comparable
+    private final Map<T, Integer> slots = new HashMap<>();
+
+    public IndexedPriorityQueue() {
+        this(null);
+    }
+
+    public IndexedPriorityQueue(Comparator<? super T> comparator) {
+        super();
+        this.comparator = comparator;
+    }
+
+    /**
+     * Builds the heap from items in O(n). Duplicates are ignored.
+     */
+    public IndexedPriorityQueue(Comparator<? super T> comparator, Iterable<? extends T> items) {
+        this(comparator);
+        for (T item : items) {
+            Objects.requireNonNull(item);
+            if (slots.putIfAbsent(item, size) == null) {
+                elements.add(item);
+                size++;
+                modCount++;
+            }
+        }
+        for (int i = (size - 2) / 2; i >= 0; i--)
+            bubbleDown(i);
+    }
+
+    private int compare(T a, T b) {
+        if (comparator != null)
+            return comparator.compare(a, b);
+        @SuppressWarnings("unchecked")
+        Comparable<? super T> ca = (Comparable<? super T>) a;
+        return ca.compareTo(b);
+    }
+
+    /**
+     * Adds element, or re-sifts it if it is already present.
+     */
+    @Override
+    public void add(T element) {
+        Objects.requireNonNull(element);
+        if (slots.containsKey(element)) {
+            update(element);
+            return;
+        }
+        elements.add(element);
+        slots.put(element, size);
+        size++;
+        modCount++;
+        bubbleUp(size - 1);
+    }
+
+    @Override
+    public T remove() {
+        if (isEmpty())
+            throw new NoSuchElementException("remove from empty IndexedPriorityQueue");
+        return removeAt(0);
+    }
+
+    @Override
+    public T peek() {
+        if (isEmpty())
+            throw new NoSuchElementException("peek from empty IndexedPriorityQueue");
+        return elements.get(0);
+    }
+
+    @Override
+    public boolean contains(T value) {
+        return slots.containsKey(value);
+    }
+
+    /**
+     * Restores heap order after element's priority changed.
+     *
+     * @return false if element is not in the queue.
+     */
+    public boolean update(T element) {
+        Integer slot = slots.get(element);
+        if (slot == null)
+            return false;
+        int i = slot;
+        if (i > 0 && compare(elements.get(i), elements.get((i - 1) / 2)) < 0)
+            bubbleUp(i);
+        else
+            bubbleDown(i);
+        return true;
+    }
+
+    /**
+     * Removes element from anywhere in the heap in O(log n).
+     *
+     * @return false if element is not in the queue.
+     */
+    public boolean removeElement(T element) {
+        Integer slot = slots.get(element);
+        if (slot == null)
+            return false;
+        removeAt(slot);
+        return true;
+    }
+
+    /**
+     * Positional replacement keeps the slot index consistent and re-sifts.
+     */
+    @Override
+    public boolean update(int index, T value) {
+        if (index < 0 || index >= size)
+            return false;
+        Objects.requireNonNull(value);
+        T old = elements.get(index);
+        if (!old.equals(value) && slots.containsKey(value))
+            return false;
+        slots.remove(old);
+        place(index, value);
+        update(value);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        slots.clear();
+    }
+
+    private T removeAt(int index) {
+        T removed = elements.get(index);
+        slots.remove(removed);
+        T last = elements.remove(size - 1);
+        size--;
+        modCount++;
+        if (index < size) {
+            place(index, last);
+            update(last);
+        }
+        return removed;
+    }
+
+    private void place(int index, T element) {
+        elements.set(index, element);
+        slots.put(element, index);
+    }
+
+    private void bubbleUp(int index) {
+        int i = index;
+        T cur = elements.get(i);
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            T par = elements.get(parent);
+            if (compare(cur, par) < 0) {
+                place(i, par);
+                i = parent;
+            } else {
+                break;
+            }
+        }
+        place(i, cur);
+    }
+
+    private void bubbleDown(int index) {
+        int i = index;
+        T cur = elements.get(i);
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size)
+                break;
+            int right = left + 1;
+            int best = left;
+            if (right < size && compare(elements.get(right), elements.get(left)) < 0)
+                best = right;
+            if (compare(elements.get(best), cur) < 0) {
+                place(i, elements.get(best));
+                i = best;
+            } else {
+                break;
+            }
+        }
+        place(i, cur);
+    }
+}
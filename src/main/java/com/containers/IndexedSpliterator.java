@@ -0,0 +1,89 @@
+package com.containers;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Index-range spliterator over a random-access ListContainer. Splits in half
+ * (so parallel streams get balanced work), reports exact sizes for every split,
+ * and fails fast if the container is structurally modified during traversal.
+ */
+final class IndexedSpliterator<T> implements Spliterator<T> {
+    private final ListContainer<T> owner;
+    private final List<T> list;
+    private int index;
+    private int fence; // -1 until first use
+    private int expectedModCount;
+
+    IndexedSpliterator(ListContainer<T> owner) {
+        this(owner, 0, -1, 0);
+    }
+
+    private IndexedSpliterator(ListContainer<T> owner, int origin, int fence, int expectedModCount) {
+        this.owner = owner;
+        this.list = owner.elements;
+        this.index = origin;
+        this.fence = fence;
+        this.expectedModCount = expectedModCount;
+    }
+
+    // late-binding: size and modCount are captured on first traversal or split
+    private int getFence() {
+        if (fence < 0) {
+            expectedModCount = owner.modCount;
+            fence = owner.size;
+        }
+        return fence;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int hi = getFence();
+        int lo = index;
+        int mid = (lo + hi) >>> 1;
+        if (lo >= mid)
+            return null;
+        index = mid;
+        return new IndexedSpliterator<>(owner, lo, mid, expectedModCount);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int hi = getFence();
+        if (index >= hi)
+            return false;
+        T e = list.get(index++);
+        action.accept(e);
+        if (owner.modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int hi = getFence();
+        int i = index;
+        // stop at the first modification so we never read past a shrunken list
+        for (; i < hi && owner.modCount == expectedModCount; i++)
+            action.accept(list.get(i));
+        index = i;
+        if (owner.modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public long estimateSize() {
+        return getFence() - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+    }
+}
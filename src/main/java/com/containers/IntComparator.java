@@ -0,0 +1,11 @@
+package com.containers;
+
+/**
+ * Comparator over primitive ints, e.g. row indexes ordered by a column, used
+ * by {@link MergeSort#sort(int[], int, int, IntComparator)} to sort without
+ * boxing.
+ */
+@FunctionalInterface
+public interface IntComparator {
+    int compare(int a, int b);
+}
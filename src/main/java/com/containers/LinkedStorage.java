@@ -0,0 +1,10 @@
+package com.containers;
+
+import java.util.LinkedList;
+
+/**
+ * LinkedList exposed as DequeStorage (the original Queue/Deque backing).
+ */
+final class LinkedStorage<T> extends LinkedList<T> implements DequeStorage<T> {
+    private static final long serialVersionUID = 1L;
+}
@@ -1,6 +1,9 @@
 package com.containers;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Abstract base class for list-like containers.
@@ -8,6 +11,8 @@ import java.util.*;
 public abstract class ListContainer<T> {
     protected List<T> elements;
     protected int size;
+    // Bumped on every structural change; lets traversals fail fast
+    protected int modCount;
 
     public ListContainer() {
         this.elements = new ArrayList<>();
@@ -25,6 +30,7 @@ public abstract class ListContainer<T> {
     public void clear() {
         elements.clear();
         size = 0;
+        modCount++;
     }
 
     /**
@@ -56,7 +62,41 @@ public abstract class ListContainer<T> {
 
     public abstract T peek(); // peek according to policy
 
-    public java.util.stream.Stream<T> stream() {
-        return elements.stream();
+    /**
+     * Sized, evenly splitting spliterator over random-access storage; falls
+     * back to the backing list's own spliterator otherwise.
+     */
+    public Spliterator<T> spliterator() {
+        if (elements instanceof RandomAccess)
+            return new IndexedSpliterator<>(this);
+        return elements.spliterator();
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Index-based traversal in storage order (bottom to top for Stack, heap
+     * array order for PriorityQueueCustom) with no iterator allocation.
+     *
+     * @throws ConcurrentModificationException if action structurally modifies
+     *                                         this container
+     */
+    public void forEach(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        int expected = modCount;
+        if (elements instanceof RandomAccess) {
+            for (int i = 0, n = size; i < n && modCount == expected; i++)
+                action.accept(elements.get(i));
+        } else {
+            elements.forEach(action);
+        }
+        if (modCount != expected)
+            throw new ConcurrentModificationException();
     }
 }
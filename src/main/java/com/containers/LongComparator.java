@@ -0,0 +1,22 @@
+package com.containers;
+
+/**
+ * Comparator over primitive longs, used by LongList and LongHeap to avoid
+ * boxing.
+ */
+@FunctionalInterface
+public interface LongComparator {
+    int compare(long a, long b);
+
+    static LongComparator natural() {
+        return Long::compare;
+    }
+
+    static LongComparator reverse() {
+        return (a, b) -> Long.compare(b, a);
+    }
+
+    default LongComparator reversed() {
+        return (a, b) -> compare(b, a);
+    }
+}
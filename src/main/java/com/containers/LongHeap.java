@@ -0,0 +1,151 @@
+package com.containers;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+
+/**
+ * Binary heap of primitive longs backed by a long[]. Min-heap in natural order
+ * by default; pass a LongComparator (e.g. {@link LongComparator#reverse()}) for
+ * other orderings. The long-specialized counterpart of PriorityQueueCustom,
+ * including its bounded {@link #topK(int, LongComparator)} mode.
+ */
+public class LongHeap {
+    private final LongComparator priority;
+    // Heap order; in bounded mode the reversed priority, so the root is the
+    // weakest retained value
+    private final LongComparator comparator;
+    private final int capacity; // 0 means unbounded
+    private long[] heap;
+    private int size;
+
+    public LongHeap() {
+        this(LongComparator.natural());
+    }
+
+    public LongHeap(LongComparator comparator) {
+        this(comparator, 0);
+    }
+
+    private LongHeap(LongComparator comparator, int capacity) {
+        this.priority = comparator != null ? comparator : LongComparator.natural();
+        this.comparator = capacity > 0 ? priority.reversed() : priority;
+        this.capacity = capacity;
+        this.heap = new long[capacity > 0 ? Math.min(capacity, 16) : 16];
+        this.size = 0;
+    }
+
+    /**
+     * Bounded heap that keeps only the k values that come first under
+     * comparator. Uses O(k) memory and O(log k) per accepted value. In this
+     * mode peek/remove return the weakest retained value; use
+     * {@link #toSortedArray()} for best-first order.
+     */
+    public static LongHeap topK(int k, LongComparator comparator) {
+        if (k <= 0)
+            throw new IllegalArgumentException("k must be positive");
+        return new LongHeap(comparator, k);
+    }
+
+    public boolean isBounded() {
+        return capacity > 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(long value) {
+        if (isBounded() && size == capacity) {
+            // full: only accept if it beats the weakest retained value
+            if (priority.compare(value, heap[0]) >= 0)
+                return;
+            heap[0] = value;
+            bubbleDown(0);
+            return;
+        }
+        if (size == heap.length)
+            heap = Arrays.copyOf(heap, heap.length << 1);
+        heap[size] = value;
+        bubbleUp(size++);
+    }
+
+    public long remove() {
+        if (isEmpty())
+            throw new NoSuchElementException("remove from empty LongHeap");
+        long root = heap[0];
+        long last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            bubbleDown(0);
+        }
+        return root;
+    }
+
+    public long peek() {
+        if (isEmpty())
+            throw new NoSuchElementException("peek from empty LongHeap");
+        return heap[0];
+    }
+
+    private void bubbleUp(int index) {
+        long v = heap[index];
+        int i = index;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (comparator.compare(v, heap[parent]) >= 0)
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = v;
+    }
+
+    private void bubbleDown(int index) {
+        long v = heap[index];
+        int i = index;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && comparator.compare(heap[right], heap[child]) < 0)
+                child = right;
+            if (comparator.compare(v, heap[child]) <= 0)
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = v;
+    }
+
+    /**
+     * Contents in priority order (best first), leaving the heap unchanged.
+     */
+    public long[] toSortedArray() {
+        LongList sorted = new LongList(size);
+        sorted.addAll(Arrays.copyOf(heap, size));
+        sorted.sort(priority);
+        return sorted.toArray();
+    }
+
+    /**
+     * Unboxed stream over the heap contents (heap order, not sorted order).
+     */
+    public LongStream stream() {
+        return Arrays.stream(heap, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(size=%d) %s",
+                this.getClass().getSimpleName(), size, Arrays.toString(Arrays.copyOf(heap, size)));
+    }
+}
@@ -0,0 +1,113 @@
+package com.containers;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+
+/**
+ * Growable list of primitive longs backed by a long[]. The long-specialized
+ * counterpart of GenericList for sizes, timestamps and other numeric columns.
+ */
+public class LongList {
+    private long[] data;
+    private int size;
+
+    public LongList() {
+        this(16);
+    }
+
+    public LongList(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("negative capacity");
+        this.data = new long[Math.max(initialCapacity, 1)];
+        this.size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > data.length)
+            data = Arrays.copyOf(data, Math.max(needed, data.length + (data.length >> 1) + 1));
+    }
+
+    public void add(long value) {
+        ensureCapacity(size + 1);
+        data[size++] = value;
+    }
+
+    public void addAll(long[] values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, data, size, values.length);
+        size += values.length;
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("get index out of range");
+        return data[index];
+    }
+
+    public void set(int index, long value) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("set index out of range");
+        data[index] = value;
+    }
+
+    public long removeLast() {
+        if (isEmpty())
+            throw new NoSuchElementException("removeLast from empty LongList");
+        return data[--size];
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    /**
+     * Ascending sort in natural order.
+     */
+    public void sort() {
+        Arrays.sort(data, 0, size);
+    }
+
+    /**
+     * Stable sort under a primitive comparator (the shared
+     * {@link MergeSort}). A null comparator means natural order.
+     */
+    public void sort(LongComparator comparator) {
+        if (comparator == null) {
+            sort();
+            return;
+        }
+        MergeSort.sort(data, 0, size, comparator);
+    }
+
+    /**
+     * Unboxed stream over the current contents.
+     */
+    public LongStream stream() {
+        return Arrays.stream(data, 0, size);
+    }
+
+    public static LongList of(LongStream values) {
+        LongList list = new LongList();
+        values.forEachOrdered(list::add);
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(size=%d) %s",
+                this.getClass().getSimpleName(), size, Arrays.toString(toArray()));
+    }
+}
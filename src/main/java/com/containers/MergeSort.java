@@ -0,0 +1,189 @@
+package com.containers;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable array-based merge sort shared by the containers. Runs shorter than
+ * {@link #INSERTION_SORT_CUTOFF} are insertion sorted, merges are skipped when
+ * the two halves are already in order, and ranges above
+ * {@link #PARALLEL_THRESHOLD} can be split across a ForkJoinPool.
+ *
+ * The int[] and long[] variants sort primitives under an {@link IntComparator}
+ * or {@link LongComparator} without boxing, e.g. row indexes ordered by a
+ * column, and are public for that use outside the package.
+ */
+public final class MergeSort {
+    static final int INSERTION_SORT_CUTOFF = 32;
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private MergeSort() {
+    }
+
+    /**
+     * Comparator that falls back to natural ordering when c is null.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Comparator<Object> comparatorOf(Comparator<? super T> c) {
+        if (c != null)
+            return (a, b) -> c.compare((T) a, (T) b);
+        return (a, b) -> ((Comparable<Object>) a).compareTo(b);
+    }
+
+    static void sort(Object[] a, Comparator<Object> c) {
+        if (a.length <= 1)
+            return;
+        sortRange(a, new Object[a.length], 0, a.length, c);
+    }
+
+    static void parallelSort(Object[] a, Comparator<Object> c) {
+        if (a.length <= PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            sort(a, c);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new SortTask(a, new Object[a.length], 0, a.length, c));
+    }
+
+    private static void sortRange(Object[] a, Object[] tmp, int lo, int hi, Comparator<Object> c) {
+        if (hi - lo <= INSERTION_SORT_CUTOFF) {
+            insertionSort(a, lo, hi, c);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sortRange(a, tmp, lo, mid, c);
+        sortRange(a, tmp, mid, hi, c);
+        merge(a, tmp, lo, mid, hi, c);
+    }
+
+    private static void insertionSort(Object[] a, int lo, int hi, Comparator<Object> c) {
+        for (int i = lo + 1; i < hi; i++) {
+            Object v = a[i];
+            int j = i - 1;
+            while (j >= lo && c.compare(a[j], v) > 0) { // strict: keeps equal elements in order
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+
+    /**
+     * Merge sorted runs [lo, mid) and [mid, hi). Only the left run is copied
+     * out; ties take the left element to keep the sort stable.
+     */
+    private static void merge(Object[] a, Object[] tmp, int lo, int mid, int hi, Comparator<Object> c) {
+        if (c.compare(a[mid - 1], a[mid]) <= 0)
+            return; // already ordered
+        System.arraycopy(a, lo, tmp, lo, mid - lo);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            if (c.compare(tmp[i], a[j]) <= 0)
+                a[k++] = tmp[i++];
+            else
+                a[k++] = a[j++];
+        }
+        while (i < mid)
+            a[k++] = tmp[i++];
+        // anything left in the right run is already in place
+    }
+
+    /**
+     * Stable sort of a[from, to) under c.
+     */
+    public static void sort(int[] a, int from, int to, IntComparator c) {
+        if (to - from <= 1)
+            return;
+        sortRange(a, new int[to], from, to, c);
+    }
+
+    private static void sortRange(int[] a, int[] tmp, int lo, int hi, IntComparator c) {
+        if (hi - lo <= INSERTION_SORT_CUTOFF) {
+            for (int i = lo + 1; i < hi; i++) {
+                int v = a[i];
+                int j = i - 1;
+                while (j >= lo && c.compare(a[j], v) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sortRange(a, tmp, lo, mid, c);
+        sortRange(a, tmp, mid, hi, c);
+        if (c.compare(a[mid - 1], a[mid]) <= 0)
+            return; // already ordered
+        System.arraycopy(a, lo, tmp, lo, mid - lo);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi)
+            a[k++] = c.compare(tmp[i], a[j]) <= 0 ? tmp[i++] : a[j++];
+        while (i < mid)
+            a[k++] = tmp[i++];
+    }
+
+    /**
+     * Stable sort of a[from, to) under c.
+     */
+    public static void sort(long[] a, int from, int to, LongComparator c) {
+        if (to - from <= 1)
+            return;
+        sortRange(a, new long[to], from, to, c);
+    }
+
+    private static void sortRange(long[] a, long[] tmp, int lo, int hi, LongComparator c) {
+        if (hi - lo <= INSERTION_SORT_CUTOFF) {
+            for (int i = lo + 1; i < hi; i++) {
+                long v = a[i];
+                int j = i - 1;
+                while (j >= lo && c.compare(a[j], v) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sortRange(a, tmp, lo, mid, c);
+        sortRange(a, tmp, mid, hi, c);
+        if (c.compare(a[mid - 1], a[mid]) <= 0)
+            return; // already ordered
+        System.arraycopy(a, lo, tmp, lo, mid - lo);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi)
+            a[k++] = c.compare(tmp[i], a[j]) <= 0 ? tmp[i++] : a[j++];
+        while (i < mid)
+            a[k++] = tmp[i++];
+    }
+
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] a;
+        private final Object[] tmp;
+        private final int lo;
+        private final int hi;
+        private final Comparator<Object> c;
+
+        SortTask(Object[] a, Object[] tmp, int lo, int hi, Comparator<Object> c) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_THRESHOLD) {
+                sortRange(a, tmp, lo, hi, c);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(a, tmp, lo, mid, c), new SortTask(a, tmp, mid, hi, c));
+            merge(a, tmp, lo, mid, hi, c);
+        }
+    }
+}
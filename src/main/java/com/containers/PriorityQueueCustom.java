@@ -5,16 +5,25 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
- * Binary-heap backed priority queue. By default constructs a min-heap using
- * natural ordering
+ * d-ary heap backed priority queue (binary by default). By default constructs
+ * a min-heap using natural ordering
  * if T implements Comparable<T>. A Comparator can be passed to control
  * ordering.
  *
+ * Bulk loads ({@link #addAll(Iterable)} and the collection constructor) are
+ * heapified bottom-up in O(n). {@link #topK(int, Comparator)} creates a
+ * bounded queue that retains only the K highest-priority elements.
+ *
  * Note: This class intentionally named PriorityQueueCustom to avoid clashing
  * with java.util.PriorityQueue.
  */
 public class PriorityQueueCustom<T> extends ListContainer<T> {
     private final Comparator<? super T> comparator; // null means natural Comparable
+    private final int arity;
+    // Bounded (top-K) mode: the heap is ordered by the reversed comparator so
+    // the root is the weakest retained element and losers are rejected with a
+    // single comparison. 0 means unbounded.
+    private final int capacity;
     // We'll use elements as the heap array
 
     public PriorityQueueCustom() {
@@ -22,11 +31,52 @@ public class PriorityQueueCustom<T> extends ListContainer<T> {
     }
 
     public PriorityQueueCustom(Comparator<? super T> comparator) {
+        this(comparator, 2);
+    }
+
+    /**
+     * @param arity children per node; 4 keeps siblings on one cache line and
+     *              halves the tree height on large heaps.
+     */
+    public PriorityQueueCustom(Comparator<? super T> comparator, int arity) {
+        this(comparator, arity, 0);
+    }
+
+    /**
+     * Builds the heap from items in O(n).
+     */
+    public PriorityQueueCustom(Comparator<? super T> comparator, Iterable<? extends T> items) {
+        this(comparator, 2);
+        addAll(items);
+    }
+
+    private PriorityQueueCustom(Comparator<? super T> comparator, int arity, int capacity) {
         super();
+        if (arity < 2)
+            throw new IllegalArgumentException("arity must be at least 2");
         this.comparator = comparator;
+        this.arity = arity;
+        this.capacity = capacity;
     }
 
-    private int compare(T a, T b) {
+    /**
+     * Bounded queue that keeps only the k elements that come first under
+     * comparator (e.g. the k largest files for a descending-size comparator).
+     * Uses O(k) memory and O(log k) per accepted element. In this mode
+     * peek/remove return the weakest retained element; use
+     * {@link #toSortedList()} for best-first order.
+     */
+    public static <T> PriorityQueueCustom<T> topK(int k, Comparator<? super T> comparator) {
+        if (k <= 0)
+            throw new IllegalArgumentException("k must be positive");
+        return new PriorityQueueCustom<>(comparator, 4, k);
+    }
+
+    public boolean isBounded() {
+        return capacity > 0;
+    }
+
+    private int priority(T a, T b) {
         if (comparator != null)
             return comparator.compare(a, b);
         // natural ordering
@@ -35,14 +85,62 @@ public class PriorityQueueCustom<T> extends ListContainer<T> {
         return ca.compareTo(b);
     }
 
+    // heap order: negative when a belongs nearer the root
+    private int compare(T a, T b) {
+        return isBounded() ? priority(b, a) : priority(a, b);
+    }
+
     @Override
     public void add(T element) {
         Objects.requireNonNull(element);
+        if (isBounded() && size == capacity) {
+            // full: only accept if it beats the weakest retained element
+            if (priority(element, elements.get(0)) >= 0)
+                return;
+            elements.set(0, element);
+            bubbleDown(0);
+            modCount++;
+            return;
+        }
         elements.add(element);
         size++;
+        modCount++;
         bubbleUp(size - 1);
     }
 
+    /**
+     * Adds every item. When the batch is at least as large as the current heap
+     * it is appended and the whole heap is rebuilt bottom-up in O(n) instead
+     * of sifting each element up.
+     */
+    public void addAll(Iterable<? extends T> items) {
+        if (isBounded()) {
+            for (T item : items)
+                add(item);
+            return;
+        }
+        int before = size;
+        for (T item : items) {
+            elements.add(Objects.requireNonNull(item));
+            size++;
+            modCount++;
+        }
+        int added = size - before;
+        if (added == 0)
+            return;
+        if (added >= before) {
+            heapify();
+        } else {
+            for (int i = before; i < size; i++)
+                bubbleUp(i);
+        }
+    }
+
+    private void heapify() {
+        for (int i = (size - 2) / arity; i >= 0; i--)
+            bubbleDown(i);
+    }
+
     @Override
     public T remove() {
         if (isEmpty())
@@ -51,6 +149,7 @@ public class PriorityQueueCustom<T> extends ListContainer<T> {
         T root = elements.get(0);
         T last = elements.remove(size - 1);
         size--;
+        modCount++;
         if (!isEmpty()) {
             elements.set(0, last);
             bubbleDown(0);
@@ -65,46 +164,58 @@ public class PriorityQueueCustom<T> extends ListContainer<T> {
         return elements.get(0);
     }
 
+    /**
+     * Contents in priority order (highest priority first), leaving the queue
+     * unchanged.
+     */
+    public GenericList<T> toSortedList() {
+        Object[] a = elements.toArray();
+        MergeSort.sort(a, MergeSort.comparatorOf(this::priority));
+        GenericList<T> sorted = new GenericList<>();
+        for (Object o : a) {
+            @SuppressWarnings("unchecked")
+            T t = (T) o;
+            sorted.add(t);
+        }
+        return sorted;
+    }
+
     private void bubbleUp(int index) {
         int i = index;
+        T cur = elements.get(i);
         while (i > 0) {
-            int parent = (i - 1) / 2;
-            T cur = elements.get(i);
+            int parent = (i - 1) / arity;
             T par = elements.get(parent);
-            if (compare(cur, par) < 0) { // cur has higher priority (min-heap)
-                swap(i, parent);
+            if (compare(cur, par) < 0) { // cur has higher priority
+                elements.set(i, par);
                 i = parent;
             } else {
                 break;
             }
         }
+        elements.set(i, cur);
     }
 
     private void bubbleDown(int index) {
         int i = index;
+        T cur = elements.get(i);
         while (true) {
-            int left = 2 * i + 1;
-            int right = 2 * i + 2;
-            int smallest = i;
-
-            if (left < size && compare(elements.get(left), elements.get(smallest)) < 0) {
-                smallest = left;
-            }
-            if (right < size && compare(elements.get(right), elements.get(smallest)) < 0) {
-                smallest = right;
+            int first = arity * i + 1;
+            if (first >= size)
+                break;
+            int best = first;
+            int end = Math.min(first + arity, size);
+            for (int c = first + 1; c < end; c++) {
+                if (compare(elements.get(c), elements.get(best)) < 0)
+                    best = c;
             }
-            if (smallest != i) {
-                swap(i, smallest);
-                i = smallest;
+            if (compare(elements.get(best), cur) < 0) {
+                elements.set(i, elements.get(best));
+                i = best;
             } else {
                 break;
             }
         }
-    }
-
-    private void swap(int i, int j) {
-        T tmp = elements.get(i);
-        elements.set(i, elements.get(j));
-        elements.set(j, tmp);
+        elements.set(i, cur);
     }
 }
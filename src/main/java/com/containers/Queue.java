@@ -1,38 +1,46 @@
 package com.containers;
 
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
- * FIFO queue. Uses LinkedList as backing to provide O(1) enqueue/dequeue.
+ * FIFO queue. Backed by a growable ring buffer by default for O(1)
+ * enqueue/dequeue without per-element allocation; the LinkedList backing is
+ * still available via {@link StorageMode#LINKED_LIST}.
  */
 public class Queue<T> extends ListContainer<T> {
+    private final DequeStorage<T> storage;
 
     public Queue() {
-        // replace backing with LinkedList for O(1) head/tail ops
-        this.elements = new LinkedList<>();
+        this(StorageMode.RING_BUFFER);
+    }
+
+    public Queue(StorageMode mode) {
+        this.storage = Objects.requireNonNull(mode).newDequeStorage();
+        this.elements = storage;
         this.size = 0;
     }
 
     public void enqueue(T element) {
         Objects.requireNonNull(element);
-        ((LinkedList<T>) elements).addLast(element);
+        storage.addLast(element);
         size++;
+        modCount++;
     }
 
     public T dequeue() {
         if (isEmpty())
             throw new NoSuchElementException("dequeue from empty Queue");
-        T val = ((LinkedList<T>) elements).removeFirst();
+        T val = storage.removeFirst();
         size--;
+        modCount++;
         return val;
     }
 
     public T peek() {
         if (isEmpty())
             throw new NoSuchElementException("peek from empty Queue");
-        return ((LinkedList<T>) elements).getFirst();
+        return storage.getFirst();
     }
 
     @Override
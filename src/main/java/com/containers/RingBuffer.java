@@ -0,0 +1,202 @@
+package com.containers;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Growable circular array. Capacity is always a power of two so slot lookup is
+ * a mask instead of a modulo. Operations at either end are O(1) amortized and
+ * allocate nothing once capacity is reached; indexed get/set are O(1);
+ * insertion and removal in the middle shift the shorter side.
+ */
+final class RingBuffer<T> extends AbstractList<T> implements RandomAccess, DequeStorage<T> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] slots;
+    private int head; // physical index of logical element 0
+    private int count;
+
+    RingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    RingBuffer(int initialCapacity) {
+        int cap = DEFAULT_CAPACITY;
+        while (cap < initialCapacity)
+            cap <<= 1;
+        this.slots = new Object[cap];
+    }
+
+    private int slot(int index) {
+        return (head + index) & (slots.length - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T at(int physical) {
+        return (T) slots[physical];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("index " + index + " out of range for size " + count);
+    }
+
+    private void growIfFull() {
+        if (count < slots.length)
+            return;
+        int cap = slots.length;
+        if (cap >= (1 << 30))
+            throw new IllegalStateException("RingBuffer capacity exceeded");
+        Object[] next = new Object[cap << 1];
+        // unroll the two physical runs into logical order
+        int firstRun = cap - head;
+        System.arraycopy(slots, head, next, 0, firstRun);
+        System.arraycopy(slots, 0, next, firstRun, head);
+        slots = next;
+        head = 0;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public T get(int index) {
+        checkIndex(index);
+        return at(slot(index));
+    }
+
+    @Override
+    public T set(int index, T element) {
+        checkIndex(index);
+        int p = slot(index);
+        T old = at(p);
+        slots[p] = element;
+        return old;
+    }
+
+    @Override
+    public void addFirst(T element) {
+        growIfFull();
+        head = (head - 1) & (slots.length - 1);
+        slots[head] = element;
+        count++;
+        modCount++;
+    }
+
+    @Override
+    public void addLast(T element) {
+        growIfFull();
+        slots[slot(count)] = element;
+        count++;
+        modCount++;
+    }
+
+    @Override
+    public T removeFirst() {
+        if (count == 0)
+            throw new NoSuchElementException();
+        T val = at(head);
+        slots[head] = null;
+        head = (head + 1) & (slots.length - 1);
+        count--;
+        modCount++;
+        return val;
+    }
+
+    @Override
+    public T removeLast() {
+        if (count == 0)
+            throw new NoSuchElementException();
+        int p = slot(count - 1);
+        T val = at(p);
+        slots[p] = null;
+        count--;
+        modCount++;
+        return val;
+    }
+
+    @Override
+    public T getFirst() {
+        if (count == 0)
+            throw new NoSuchElementException();
+        return at(head);
+    }
+
+    @Override
+    public T getLast() {
+        if (count == 0)
+            throw new NoSuchElementException();
+        return at(slot(count - 1));
+    }
+
+    @Override
+    public boolean add(T element) {
+        addLast(element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        if (index < 0 || index > count)
+            throw new IndexOutOfBoundsException("index " + index + " out of range for size " + count);
+        if (index == 0) {
+            addFirst(element);
+            return;
+        }
+        if (index == count) {
+            addLast(element);
+            return;
+        }
+        growIfFull();
+        int mask = slots.length - 1;
+        if (index < count - index) {
+            // shift the front run one slot to the left
+            head = (head - 1) & mask;
+            for (int i = 0; i < index; i++)
+                slots[(head + i) & mask] = slots[(head + i + 1) & mask];
+        } else {
+            // shift the back run one slot to the right
+            for (int i = count; i > index; i--)
+                slots[(head + i) & mask] = slots[(head + i - 1) & mask];
+        }
+        slots[(head + index) & mask] = element;
+        count++;
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        checkIndex(index);
+        if (index == 0)
+            return removeFirst();
+        if (index == count - 1)
+            return removeLast();
+        int mask = slots.length - 1;
+        T val = at((head + index) & mask);
+        if (index < count - index) {
+            for (int i = index; i > 0; i--)
+                slots[(head + i) & mask] = slots[(head + i - 1) & mask];
+            slots[head] = null;
+            head = (head + 1) & mask;
+        } else {
+            for (int i = index; i < count - 1; i++)
+                slots[(head + i) & mask] = slots[(head + i + 1) & mask];
+            slots[(head + count - 1) & mask] = null;
+        }
+        count--;
+        modCount++;
+        return val;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(slots, null);
+        head = 0;
+        count = 0;
+        modCount++;
+    }
+}
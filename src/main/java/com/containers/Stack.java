@@ -16,6 +16,7 @@ public class Stack<T> extends ListContainer<T> {
         Objects.requireNonNull(element);
         elements.add(element);
         size++;
+        modCount++;
     }
 
     public T pop() {
@@ -23,6 +24,7 @@ public class Stack<T> extends ListContainer<T> {
             throw new NoSuchElementException("pop from empty Stack");
         T val = elements.remove(size - 1);
         size--;
+        modCount++;
         return val;
     }
 
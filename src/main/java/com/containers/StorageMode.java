@@ -0,0 +1,41 @@
+package com.containers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backing storage strategy, chosen when a container is constructed.
+ */
+public enum StorageMode {
+    /** java.util.ArrayList. Default for GenericList; O(n) at the front. */
+    ARRAY_LIST,
+    /**
+     * Growable circular array with power-of-two masking. Default for Queue and
+     * Deque; O(1) indexed access and amortized O(1) at both ends.
+     */
+    RING_BUFFER,
+    /** java.util.LinkedList, one node per element. Kept for comparison. */
+    LINKED_LIST;
+
+    <T> List<T> newListStorage() {
+        switch (this) {
+            case ARRAY_LIST:
+                return new ArrayList<>();
+            case RING_BUFFER:
+                return new RingBuffer<>();
+            default:
+                throw new IllegalArgumentException(this + " does not provide O(1) indexed access");
+        }
+    }
+
+    <T> DequeStorage<T> newDequeStorage() {
+        switch (this) {
+            case LINKED_LIST:
+                return new LinkedStorage<>();
+            case RING_BUFFER:
+                return new RingBuffer<>();
+            default:
+                throw new IllegalArgumentException(this + " does not provide O(1) operations at both ends");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.containers;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Chase-Lev work-stealing deque. A single owner thread pushes and pops at the
+ * bottom (LIFO, no CAS except on the last element); any number of thief
+ * threads {@link #steal()} from the top (FIFO). The backing array is a
+ * growable power-of-two ring. Size is bottom - top, so it needs no shared
+ * counter at all.
+ */
+public class WorkStealingDeque<T> extends ConcurrentListContainer<T> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<WorkStealingDeque> TOP =
+            AtomicLongFieldUpdater.newUpdater(WorkStealingDeque.class, "top");
+
+    private volatile long top;
+    private volatile long bottom;
+    private volatile AtomicReferenceArray<T> array = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+
+    /**
+     * Owner only.
+     */
+    public void push(T element) {
+        Objects.requireNonNull(element);
+        long b = bottom;
+        long t = top;
+        AtomicReferenceArray<T> a = array;
+        if (b - t >= a.length() - 1)
+            a = grow(a, t, b);
+        a.set((int) (b & (a.length() - 1)), element);
+        bottom = b + 1;
+    }
+
+    private AtomicReferenceArray<T> grow(AtomicReferenceArray<T> old, long t, long b) {
+        AtomicReferenceArray<T> next = new AtomicReferenceArray<>(old.length() << 1);
+        int oldMask = old.length() - 1;
+        int newMask = next.length() - 1;
+        for (long i = t; i < b; i++)
+            next.set((int) (i & newMask), old.get((int) (i & oldMask)));
+        array = next;
+        return next;
+    }
+
+    /**
+     * Owner only. Removes the most recently pushed element, or returns null if
+     * the deque is empty (or the last element was just stolen).
+     */
+    public T tryPop() {
+        long b = bottom - 1;
+        AtomicReferenceArray<T> a = array;
+        bottom = b; // volatile write then volatile read of top: no reordering
+        long t = top;
+        if (t > b) {
+            bottom = b + 1; // empty
+            return null;
+        }
+        T val = a.get((int) (b & (a.length() - 1)));
+        if (t == b) {
+            // last element: race thieves for it
+            if (!TOP.compareAndSet(this, t, t + 1))
+                val = null;
+            bottom = b + 1;
+            return val;
+        }
+        a.set((int) (b & (a.length() - 1)), null);
+        return val;
+    }
+
+    public T pop() {
+        T val = tryPop();
+        if (val == null)
+            throw new NoSuchElementException("pop from empty WorkStealingDeque");
+        return val;
+    }
+
+    /**
+     * Any thread. Takes the oldest element, or returns null if the deque is
+     * empty or the CAS lost to another thief or the owner.
+     */
+    public T steal() {
+        long t = top;
+        long b = bottom;
+        if (t >= b)
+            return null;
+        AtomicReferenceArray<T> a = array;
+        T val = a.get((int) (t & (a.length() - 1)));
+        if (!TOP.compareAndSet(this, t, t + 1))
+            return null;
+        return val;
+    }
+
+    /**
+     * Owner only: the element the next pop would return.
+     */
+    @Override
+    public T peek() {
+        long b = bottom - 1;
+        if (top > b)
+            throw new NoSuchElementException("peek from empty WorkStealingDeque");
+        AtomicReferenceArray<T> a = array;
+        return a.get((int) (b & (a.length() - 1)));
+    }
+
+    @Override
+    public void add(T element) {
+        push(element);
+    }
+
+    @Override
+    public T remove() {
+        return pop();
+    }
+
+    @Override
+    public int size() {
+        long n = bottom - top;
+        return n <= 0 ? 0 : (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Owner only.
+     */
+    @Override
+    public void clear() {
+        while (tryPop() != null) {
+            // drain
+        }
+    }
+
+    /**
+     * Top (oldest) to bottom (newest).
+     */
+    @Override
+    List<T> snapshot() {
+        List<T> snap = newSnapshot();
+        AtomicReferenceArray<T> a = array;
+        long b = bottom;
+        for (long i = top; i < b; i++) {
+            T val = a.get((int) (i & (a.length() - 1)));
+            if (val != null)
+                snap.add(val);
+        }
+        return snap;
+    }
+}
@@ -0,0 +1,72 @@
+package com.sysops;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a tokenized command into positional arguments and "--option"
+ * flags. Options named in the constructor consume the following token as
+ * their value; any other "--option" is a boolean flag.
+ */
+class CommandArgs {
+    private final List<String> positionals = new ArrayList<>();
+    private final Map<String, String> options = new HashMap<>();
+
+    /**
+     * @param parts          tokens including the command word at index 0
+     * @param valuedOptions  option names (without "--") that take a value
+     */
+    CommandArgs(String[] parts, String... valuedOptions) {
+        List<String> valued = Arrays.asList(valuedOptions);
+        for (int i = 1; i < parts.length; i++) {
+            String tok = parts[i];
+            if (tok.startsWith("--") && tok.length() > 2) {
+                String name = tok.substring(2);
+                if (valued.contains(name) && i + 1 < parts.length)
+                    options.put(name, parts[++i]);
+                else
+                    options.put(name, "");
+            } else {
+                positionals.add(tok);
+            }
+        }
+    }
+
+    int positionalCount() {
+        return positionals.size();
+    }
+
+    /**
+     * @return the index-th positional argument, or null if absent.
+     */
+    String positional(int index) {
+        return index < positionals.size() ? positionals.get(index) : null;
+    }
+
+    boolean has(String option) {
+        return options.containsKey(option);
+    }
+
+    String value(String option) {
+        return options.get(option);
+    }
+
+    /**
+     * @throws NumberFormatException if the option is present but not a number
+     */
+    int intValue(String option, int defaultValue) {
+        String v = options.get(option);
+        return v == null || v.isEmpty() ? defaultValue : Integer.parseInt(v);
+    }
+
+    /**
+     * @throws NumberFormatException if the option is present but not a number
+     */
+    long longValue(String option, long defaultValue) {
+        String v = options.get(option);
+        return v == null || v.isEmpty() ? defaultValue : Long.parseLong(v);
+    }
+}
@@ -2,25 +2,106 @@ package com.sysops;
 
 import com.containers.GenericList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 public class DirectoryItem extends FileSystemItem {
-    private GenericList<FileSystemItem> children;
+    private GenericList<FileSystemItem> children; // created on first use
+    // Subtree totals; only filled in by a recursive scan
+    private long fileCount;
+    private long directoryCount;
+    private boolean listed; // children were actually read (within scan depth)
+    private Map<String, Integer> positions; // child name -> index, built on first lookup
 
     public DirectoryItem(String name, long size, Date lastModified) {
         super(name, size, lastModified);
-        this.children = new GenericList<>();
+    }
+
+    public DirectoryItem(String name, long size, long lastModified) {
+        super(name, size, lastModified);
     }
 
     public void addChild(FileSystemItem item) {
-        children.add(item);
+        getChildren().add(item);
+        if (positions != null)
+            positions.put(item.getName(), children.size() - 1);
+    }
+
+    FileSystemItem getChild(String name) {
+        Integer i = positions().get(name);
+        return i == null ? null : children.get(i);
+    }
+
+    /**
+     * Adds item, replacing any child with the same name.
+     */
+    void putChild(FileSystemItem item) {
+        Integer i = positions().get(item.getName());
+        if (i == null)
+            addChild(item);
+        else
+            children.update(i, item);
+    }
+
+    /**
+     * Removes the named child in O(1) by moving the last child into its slot.
+     */
+    void removeChild(String name) {
+        Integer i = positions().remove(name);
+        if (i == null)
+            return;
+        int last = children.size() - 1;
+        FileSystemItem moved = children.removeAt(last);
+        if (i != last) {
+            children.update(i, moved);
+            positions.put(moved.getName(), i);
+        }
+    }
+
+    private Map<String, Integer> positions() {
+        if (positions == null) {
+            GenericList<FileSystemItem> list = getChildren();
+            positions = new HashMap<>(list.size() * 2);
+            for (int i = 0; i < list.size(); i++)
+                positions.put(list.get(i).getName(), i);
+        }
+        return positions;
     }
 
     public GenericList<FileSystemItem> getChildren() {
+        if (children == null)
+            children = new GenericList<>();
         return children;
     }
 
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    public long getDirectoryCount() {
+        return directoryCount;
+    }
+
+    boolean isListed() {
+        return listed;
+    }
+
+    void setTotals(long size, long fileCount, long directoryCount, boolean listed) {
+        this.size = size;
+        this.fileCount = fileCount;
+        this.directoryCount = directoryCount;
+        this.listed = listed;
+    }
+
+    /**
+     * Adjusts the aggregated subtree size after a change below this directory.
+     */
+    void addToSize(long delta) {
+        this.size += delta;
+    }
+
     @Override
     public String toString() {
-        return super.toString() + " [DIR] (" + children.size() + " items)";
+        return super.toString() + " [DIR] (" + (children == null ? 0 : children.size()) + " items)";
     }
 }
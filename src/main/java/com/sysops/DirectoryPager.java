@@ -0,0 +1,122 @@
+package com.sysops;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+
+/**
+ * Pulls a directory listing off an open DirectoryStream a page at a time, so
+ * the first entries are available immediately and memory is bounded by the
+ * page rather than the directory. Attributes are read only for entries that
+ * are actually delivered.
+ *
+ * Links are followed like File.isDirectory()/length() would; a dangling link
+ * is reported with its own attributes.
+ */
+class DirectoryPager implements Closeable {
+
+    @FunctionalInterface
+    interface EntrySink {
+        void accept(String name, BasicFileAttributes attrs);
+    }
+
+    private final Path directory;
+    private final DirectoryStream<Path> stream;
+    private final Iterator<Path> entries;
+    private long delivered;
+    private long errors;
+    private long statNanos;
+
+    DirectoryPager(Path directory) throws IOException {
+        this.directory = directory;
+        this.stream = Files.newDirectoryStream(directory);
+        this.entries = stream.iterator();
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    /**
+     * Entries delivered so far.
+     */
+    long position() {
+        return delivered;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * Time spent in readAttributes so far (only measured while Metrics is active).
+     */
+    long statNanos() {
+        return statNanos;
+    }
+
+    boolean hasMore() {
+        try {
+            return entries.hasNext();
+        } catch (DirectoryIteratorException e) {
+            errors++;
+            return false;
+        }
+    }
+
+    /**
+     * Delivers up to max further entries to sink.
+     *
+     * @return number of entries delivered
+     */
+    int next(int max, EntrySink sink) {
+        int n = 0;
+        while (n < max && hasMore()) {
+            Path p = entries.next();
+            long t = Metrics.start();
+            BasicFileAttributes a = attributesOf(p);
+            if (t != 0L)
+                statNanos += System.nanoTime() - t;
+            if (a == null) {
+                errors++; // deleted since it was listed
+                continue;
+            }
+            sink.accept(p.getFileName().toString(), a);
+            n++;
+        }
+        delivered += n;
+        return n;
+    }
+
+    private static BasicFileAttributes attributesOf(Path p) {
+        try {
+            return Files.readAttributes(p, BasicFileAttributes.class);
+        } catch (IOException followFailed) {
+            try {
+                return Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Builds the display item for one delivered entry. Directories get size 0,
+     * as in a regular listing.
+     */
+    static FileSystemItem itemOf(String name, BasicFileAttributes a) {
+        long mtime = a.lastModifiedTime().toMillis();
+        return a.isDirectory() ? new DirectoryItem(name, 0, mtime) : new FileItem(name, a.size(), mtime);
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
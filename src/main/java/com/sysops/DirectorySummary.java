@@ -0,0 +1,176 @@
+package com.sysops;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Every statistic the analyze report needs, gathered in one pass. Summaries
+ * are mutable accumulators that can be combined, so a listing can be folded
+ * by a parallel stream and a tree by fork-join tasks (one summary per task,
+ * combined on join).
+ *
+ * File sizes go into a log2 histogram (bucket b holds sizes in
+ * [2^(b-1), 2^b), bucket 0 holds empty files), which gives percentiles to
+ * within a factor of two in constant space.
+ */
+class DirectorySummary {
+    static final long[] AGE_LIMITS_MILLIS = { 86_400_000L, 7 * 86_400_000L, 30 * 86_400_000L, 365 * 86_400_000L };
+    static final String[] AGE_LABELS = { "< 1 day", "< 1 week", "< 30 days", "< 1 year", ">= 1 year" };
+
+    static final class ExtensionTotals {
+        long files;
+        long bytes;
+    }
+
+    private final long now;
+    long files;
+    long directories;
+    long totalSize;
+    long maxSize; // largest file
+    long unreadable;
+    final long[] sizeBuckets = new long[65];
+    final long[] ageBuckets = new long[AGE_LABELS.length];
+    final Map<String, ExtensionTotals> extensions = new HashMap<>();
+
+    /**
+     * @param now reference time (epoch millis) for the age buckets
+     */
+    DirectorySummary(long now) {
+        this.now = now;
+    }
+
+    void accept(String extension, long size, long lastModified, boolean directory) {
+        totalSize += size;
+        if (directory) {
+            directories++;
+            return;
+        }
+        files++;
+        maxSize = Math.max(maxSize, size); // files only: a directory row may carry a scanned subtree size
+        sizeBuckets[64 - Long.numberOfLeadingZeros(size)]++;
+        long age = now - lastModified;
+        int a = 0;
+        while (a < AGE_LIMITS_MILLIS.length && age >= AGE_LIMITS_MILLIS[a])
+            a++;
+        ageBuckets[a]++;
+        ExtensionTotals t = extensions.computeIfAbsent(extension, e -> new ExtensionTotals());
+        t.files++;
+        t.bytes += size;
+    }
+
+    DirectorySummary combine(DirectorySummary other) {
+        files += other.files;
+        directories += other.directories;
+        totalSize += other.totalSize;
+        maxSize = Math.max(maxSize, other.maxSize);
+        unreadable += other.unreadable;
+        for (int i = 0; i < sizeBuckets.length; i++)
+            sizeBuckets[i] += other.sizeBuckets[i];
+        for (int i = 0; i < ageBuckets.length; i++)
+            ageBuckets[i] += other.ageBuckets[i];
+        other.extensions.forEach((ext, o) -> {
+            ExtensionTotals t = extensions.computeIfAbsent(ext, e -> new ExtensionTotals());
+            t.files += o.files;
+            t.bytes += o.bytes;
+        });
+        return this;
+    }
+
+    /**
+     * Upper bound of the bucket holding the p-th quantile of file sizes
+     * (0 < p <= 1), or 0 if there are no files.
+     */
+    long sizePercentile(double p) {
+        long rank = (long) Math.ceil(p * files);
+        long seen = 0;
+        for (int b = 0; b < sizeBuckets.length; b++) {
+            seen += sizeBuckets[b];
+            if (seen >= rank && seen > 0)
+                return b == 0 ? 0 : b >= 63 ? Long.MAX_VALUE : (1L << b) - 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Summarizes one listing, folding rows in parallel once it is large enough
+     * to pay for the split.
+     */
+    static DirectorySummary of(ItemStore store, long now) {
+        IntStream rows = IntStream.range(0, store.size());
+        return (store.liveRows() >= SysOpsApp.PARALLEL_SCAN_THRESHOLD ? rows.parallel() : rows)
+                .filter(row -> !store.isDeleted(row))
+                .collect(() -> new DirectorySummary(now),
+                        (s, row) -> s.accept(store.isDirectory(row) ? "" : store.extension(row),
+                                store.size(row), store.lastModified(row), store.isDirectory(row)),
+                        DirectorySummary::combine);
+    }
+
+    /**
+     * Summarizes everything below root (symbolic links are not followed).
+     * Directory entries count towards the directory total with size 0, so the
+     * total size is the sum of file sizes.
+     */
+    static DirectorySummary ofTree(Path root, int parallelism, long now) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new TreeTask(root, now));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final class TreeTask extends RecursiveTask<DirectorySummary> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path dir;
+        private final long now;
+
+        TreeTask(Path dir, long now) {
+            this.dir = dir;
+            this.now = now;
+        }
+
+        @Override
+        protected DirectorySummary compute() {
+            DirectorySummary summary = new DirectorySummary(now);
+            List<TreeTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path p : stream) {
+                    BasicFileAttributes a;
+                    try {
+                        a = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        summary.unreadable++;
+                        continue;
+                    }
+                    String name = p.getFileName().toString();
+                    if (a.isDirectory()) {
+                        summary.accept("", 0, a.lastModifiedTime().toMillis(), true);
+                        TreeTask t = new TreeTask(p, now);
+                        t.fork();
+                        subtasks.add(t);
+                    } else {
+                        summary.accept(FileItem.extensionOf(name), a.size(), a.lastModifiedTime().toMillis(), false);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                summary.unreadable++;
+            }
+            for (TreeTask t : subtasks)
+                summary.combine(t.join());
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.sysops;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Watches a directory (optionally its whole subtree) with a WatchService on a
+ * daemon thread. Events are only recorded, never applied: they are coalesced
+ * into a set of dirty paths that the owner drains on its own thread, so any
+ * number of events for one path costs a single re-stat. An OVERFLOW, or a
+ * failure to register a new subdirectory, collapses into one rescan signal.
+ */
+class DirectoryWatcher implements Closeable {
+
+    /**
+     * Everything that changed since the previous drain.
+     */
+    static final class Changes {
+        final boolean rescan;
+        final Set<Path> paths;
+
+        Changes(boolean rescan, Set<Path> paths) {
+            this.rescan = rescan;
+            this.paths = paths;
+        }
+    }
+
+    private final WatchService service;
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+    private final Set<Path> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean overflow = new AtomicBoolean();
+    private final Thread thread;
+    private volatile Path root;
+    private volatile boolean recursive;
+
+    DirectoryWatcher() throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::run, "sysops-watch");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Switches the watch to dir, dropping the previous registrations and any
+     * changes not yet drained.
+     */
+    synchronized void watch(Path dir, boolean recursive) throws IOException {
+        for (WatchKey k : keys.keySet())
+            k.cancel();
+        keys.clear();
+        this.root = dir;
+        this.recursive = recursive;
+        if (recursive)
+            registerTree(dir);
+        else
+            register(dir);
+        dirty.clear();
+        overflow.set(false);
+    }
+
+    Path root() {
+        return root;
+    }
+
+    boolean isRecursive() {
+        return recursive;
+    }
+
+    int watchedDirectories() {
+        return keys.size();
+    }
+
+    Changes drain() {
+        boolean rescan = overflow.getAndSet(false);
+        Set<Path> paths = new HashSet<>();
+        for (Iterator<Path> it = dirty.iterator(); it.hasNext();) {
+            paths.add(it.next());
+            it.remove();
+        }
+        return new Changes(rescan, paths);
+    }
+
+    private synchronized void register(Path dir) throws IOException {
+        WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        keys.put(key, dir);
+    }
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE; // unreadable subtree: nothing to watch
+            }
+        });
+    }
+
+    private void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = keys.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow.set(true);
+                    continue;
+                }
+                if (dir == null)
+                    continue; // key was cancelled by a re-watch
+                Path child = dir.resolve((Path) event.context());
+                dirty.add(child);
+                if (recursive && event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    try {
+                        registerTree(child);
+                    } catch (IOException e) {
+                        overflow.set(true); // part of the subtree is unwatched; rescan
+                    }
+                }
+            }
+            if (!key.reset())
+                keys.remove(key); // directory is gone; its parent reports the delete
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+        thread.interrupt();
+    }
+}
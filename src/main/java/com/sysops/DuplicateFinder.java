@@ -0,0 +1,269 @@
+package com.sysops;
+
+import com.containers.GenericList;
+import com.containers.LongList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds groups of identical files below a directory with a staged pipeline,
+ * each stage only looking at the survivors of the previous one:
+ *
+ * 1. group regular files by size (metadata only, no reads);
+ * 2. hash the first and last {@link #BLOCK} bytes of every file sharing a
+ *    size with another;
+ * 3. fully hash files that still collide.
+ *
+ * Reads go through memory-mapped FileChannel windows. Hashing runs on a fixed
+ * pool whose size bounds the number of files being read at once, so I/O
+ * concurrency stays under control on spinning disks and network mounts.
+ * Symbolic links are not followed.
+ */
+class DuplicateFinder {
+    static final int BLOCK = 4096;
+    private static final long MAP_WINDOW = 64L << 20;
+
+    static final class Group {
+        final long size;
+        final GenericList<Path> files;
+
+        Group(long size, GenericList<Path> files) {
+            this.size = size;
+            this.files = files;
+        }
+
+        long reclaimableBytes() {
+            return size * (files.size() - 1);
+        }
+    }
+
+    private final int ioThreads;
+    private final long minSize;
+
+    private long filesScanned;
+    private long sizeCandidates;
+    private long partialCandidates;
+    private final LongAdder bytesHashed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param ioThreads files hashed concurrently
+     * @param minSize   smallest file size considered (at least 1: empty files
+     *                  are trivially identical)
+     */
+    DuplicateFinder(int ioThreads, long minSize) {
+        if (ioThreads < 1)
+            throw new IllegalArgumentException("ioThreads must be >= 1");
+        this.ioThreads = ioThreads;
+        this.minSize = Math.max(1, minSize);
+    }
+
+    long filesScanned() {
+        return filesScanned;
+    }
+
+    /**
+     * Files that shared their size with another file (entered stage 2).
+     */
+    long sizeCandidates() {
+        return sizeCandidates;
+    }
+
+    /**
+     * Files whose partial hash collided (entered stage 3).
+     */
+    long partialCandidates() {
+        return partialCandidates;
+    }
+
+    long bytesHashed() {
+        return bytesHashed.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return duplicate groups, most reclaimable bytes first
+     */
+    GenericList<Group> find(Path root) throws IOException, InterruptedException {
+        LongList sizes = new LongList();
+        List<Path> paths = new ArrayList<>();
+        Set<Object> seenKeys = new HashSet<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    filesScanned++;
+                    Object key = attrs.fileKey();
+                    if (key != null && !seenKeys.add(key))
+                        return FileVisitResult.CONTINUE; // another hard link to a file already seen
+                    if (attrs.size() >= minSize) {
+                        sizes.add(attrs.size());
+                        paths.add(file);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                errors.increment();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        seenKeys.clear();
+        // Most sizes are unique: find the shared ones on a sorted primitive
+        // copy so only their files get boxed into per-size buckets
+        long[] shared = sharedValues(sizes);
+        Map<Long, List<Path>> bySize = new HashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            long size = sizes.get(i);
+            if (Arrays.binarySearch(shared, size) >= 0)
+                bySize.computeIfAbsent(size, s -> new ArrayList<>(2)).add(paths.get(i));
+        }
+        paths.clear();
+        List<List<Path>> groups = new ArrayList<>(bySize.values());
+        bySize.clear();
+        sizeCandidates = count(groups);
+
+        ExecutorService pool = Executors.newFixedThreadPool(ioThreads, r -> {
+            Thread t = new Thread(r, "sysops-dupes");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            groups = refine(pool, groups, true);
+            partialCandidates = count(groups);
+            groups = refine(pool, groups, false);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        GenericList<Group> result = new GenericList<>();
+        for (List<Path> g : groups) {
+            GenericList<Path> files = new GenericList<>();
+            g.forEach(files::add);
+            files.sort(null);
+            result.add(new Group(sizeOf(g), files));
+        }
+        // A large tree can yield tens of thousands of groups; below the split
+        // threshold this is the plain sequential merge sort
+        result.parallelSort((a, b) -> Long.compare(b.reclaimableBytes(), a.reclaimableBytes()));
+        return result;
+    }
+
+    // Ascending values that occur more than once
+    private static long[] sharedValues(LongList values) {
+        LongList sorted = LongList.of(values.stream());
+        sorted.sort();
+        LongList shared = new LongList();
+        for (int i = 1; i < sorted.size(); i++) {
+            long v = sorted.get(i);
+            if (v == sorted.get(i - 1) && (shared.isEmpty() || shared.get(shared.size() - 1) != v))
+                shared.add(v);
+        }
+        return shared.toArray();
+    }
+
+    private static long count(List<List<Path>> groups) {
+        long n = 0;
+        for (List<Path> g : groups)
+            n += g.size();
+        return n;
+    }
+
+    private static long sizeOf(List<Path> group) {
+        try {
+            return Files.size(group.get(0));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Splits every group by a content hash and keeps the sub-groups that still
+    // have more than one member. Files no larger than two blocks are fully
+    // covered by the partial hash and skip the full pass.
+    private List<List<Path>> refine(ExecutorService pool, List<List<Path>> groups, boolean partial)
+            throws InterruptedException {
+        List<Path> files = new ArrayList<>();
+        List<Future<ByteBuffer>> hashes = new ArrayList<>();
+        List<List<Path>> settled = new ArrayList<>();
+        for (List<Path> g : groups) {
+            if (!partial && sizeOf(g) <= 2L * BLOCK) {
+                settled.add(g);
+                continue;
+            }
+            for (Path p : g) {
+                files.add(p);
+                Callable<ByteBuffer> task = () -> hash(p, partial);
+                hashes.add(pool.submit(task));
+            }
+        }
+        Map<ByteBuffer, List<Path>> byHash = new HashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            ByteBuffer key;
+            try {
+                key = hashes.get(i).get();
+            } catch (ExecutionException e) {
+                errors.increment(); // vanished or unreadable: drop it
+                continue;
+            }
+            byHash.computeIfAbsent(key, k -> new ArrayList<>(2)).add(files.get(i));
+        }
+        for (List<Path> g : byHash.values())
+            if (g.size() > 1)
+                settled.add(g);
+        return settled;
+    }
+
+    // Key is size plus SHA-256 of either the first and last blocks or the
+    // whole file, so equal hashes of different-sized files never collide.
+    // ByteBuffer compares and hashes by content, so the raw bytes serve as key.
+    private ByteBuffer hash(Path file, boolean partial) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (partial) {
+                long head = Math.min(size, BLOCK);
+                md.update(ch.map(FileChannel.MapMode.READ_ONLY, 0, head));
+                long tailStart = Math.max(head, size - BLOCK);
+                if (tailStart < size)
+                    md.update(ch.map(FileChannel.MapMode.READ_ONLY, tailStart, size - tailStart));
+                bytesHashed.add(head + (size - tailStart));
+            } else {
+                for (long pos = 0; pos < size; pos += MAP_WINDOW) {
+                    MappedByteBuffer window = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_WINDOW, size - pos));
+                    md.update(window);
+                }
+                bytesHashed.add(size);
+            }
+            byte[] digest = md.digest();
+            return ByteBuffer.allocate(Long.BYTES + digest.length).putLong(size).put(digest).flip();
+        }
+    }
+}
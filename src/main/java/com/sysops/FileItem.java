@@ -1,19 +1,54 @@
 package com.sysops;
 
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FileItem extends FileSystemItem {
+    // Canonical extension strings: a tree has a few hundred distinct extensions,
+    // so every FileItem shares one instance instead of holding its own substring.
+    // Capped so pathological names (random suffixes) cannot grow it unbounded.
+    private static final int MAX_INTERNED_EXTENSIONS = 1 << 14;
+    private static final ConcurrentHashMap<String, String> EXTENSIONS = new ConcurrentHashMap<>();
+
     private String extension;
 
     public FileItem(String name, long size, Date lastModified, String extension) {
         super(name, size, lastModified);
-        this.extension = extension;
+        this.extension = intern(extension);
+    }
+
+    public FileItem(String name, long size, long lastModified) {
+        super(name, size, lastModified);
+        this.extension = extensionOf(name);
     }
 
     public String getExtension() {
         return extension;
     }
 
+    /**
+     * Extension after the last '.', as the shared instance for that extension.
+     */
+    static String extensionOf(String name) {
+        int i = name.lastIndexOf('.');
+        if (i > 0) {
+            return intern(name.substring(i + 1));
+        }
+        return "";
+    }
+
+    static String intern(String extension) {
+        if (extension == null || extension.isEmpty())
+            return extension;
+        String shared = EXTENSIONS.get(extension);
+        if (shared != null)
+            return shared;
+        if (EXTENSIONS.size() >= MAX_INTERNED_EXTENSIONS)
+            return extension;
+        shared = EXTENSIONS.putIfAbsent(extension, extension);
+        return shared != null ? shared : extension;
+    }
+
     @Override
     public String toString() {
         return super.toString() + " [FILE]";
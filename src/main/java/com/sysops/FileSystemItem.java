@@ -5,14 +5,18 @@ import java.util.Date;
 public abstract class FileSystemItem {
     protected String name;
     protected long size;
-    protected Date lastModified;
+    protected long lastModified; // epoch millis; a Date per entry cost 24 bytes
 
-    public FileSystemItem(String name, long size, Date lastModified) {
+    public FileSystemItem(String name, long size, long lastModified) {
         this.name = name;
         this.size = size;
         this.lastModified = lastModified;
     }
 
+    public FileSystemItem(String name, long size, Date lastModified) {
+        this(name, size, lastModified != null ? lastModified.getTime() : 0L);
+    }
+
     public String getName() {
         return name;
     }
@@ -21,12 +25,19 @@ public abstract class FileSystemItem {
         return size;
     }
 
+    /**
+     * @return a new Date on every call; prefer {@link #getLastModifiedMillis()}
+     */
     public Date getLastModified() {
+        return new Date(getLastModifiedMillis());
+    }
+
+    public long getLastModifiedMillis() {
         return lastModified;
     }
 
     @Override
     public String toString() {
-        return String.format("%-20s %10d bytes  %s", name, size, lastModified);
+        return String.format("%-20s %10d bytes  %s", getName(), getSize(), getLastModified());
     }
 }
@@ -0,0 +1,297 @@
+package com.sysops;
+
+import com.containers.GenericList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Persistent command history: an append-only log with one UTF-8 command per
+ * line, shared by every session.
+ *
+ * Entries already on disk when the log is opened are read through a
+ * read-only mapping (only line offsets are kept on the heap); new entries go
+ * through a buffer onto an APPEND channel. Reverse search intersects trigram
+ * postings ({@link TrigramPostings}) built on the first search and caught up
+ * incrementally after that.
+ *
+ * Every write holds an exclusive {@link FileLock} on the log. Whenever a write
+ * leaves the log above its cap, the log is rotated under that lock. The newest
+ * half is copied to a fresh file, which is then moved over the log. The old
+ * file is never truncated, so other sessions' mappings of it stay valid. A
+ * session that locks a log which has since been rotated reopens the new file
+ * before writing. After rotating, a session re-maps the new file and drops its
+ * in-heap appended entries, so its heap use is bounded by the cap as well.
+ */
+class HistoryLog implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final long maxBytes;
+    private FileChannel out;
+    private Object outKey; // fileKey of the file out was opened on
+    private final ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean needsNewline; // log ended mid-line (interrupted write)
+
+    private MappedByteBuffer mapped;
+    private int[] lineStarts; // mappedCount + 1 entries; last is the end of the mapped region
+    private int mappedCount;
+    private final GenericList<String> appended = new GenericList<>();
+
+    private TrigramPostings index; // built on first search
+    private int indexedCount;
+
+    private HistoryLog(Path file, long maxBytes) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens (creating if needed) the log at file, first rotating it to the
+     * newest maxBytes / 2 if it has grown beyond maxBytes.
+     */
+    static HistoryLog open(Path file, long maxBytes) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        HistoryLog log = new HistoryLog(file, maxBytes);
+        log.openOut();
+        try {
+            log.load(true);
+        } catch (IOException e) {
+            log.out.close();
+            throw e;
+        }
+        return log;
+    }
+
+    private void openOut() throws IOException {
+        out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        outKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    // Locks the live log, first following a rotation done by another session
+    private FileLock lockCurrent() throws IOException {
+        while (true) {
+            FileLock lock = out.lock();
+            boolean current;
+            try {
+                Object key = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+                current = key == null || key.equals(outKey); // no file keys on this platform: can't tell
+            } catch (NoSuchFileException e) {
+                current = false; // deleted: start a new log
+            }
+            if (current)
+                return lock;
+            lock.release();
+            out.close();
+            openOut();
+        }
+    }
+
+    // Under the lock: rotates an oversized log, otherwise maps it if always
+    private void load(boolean always) throws IOException {
+        FileLock lock = lockCurrent();
+        FileChannel locked = out;
+        try {
+            if (out.size() > maxBytes)
+                rotate();
+            else if (always)
+                map(file);
+        } finally {
+            lock.release();
+            if (locked != out)
+                locked.close();
+        }
+    }
+
+    // Copies whole lines from the newest maxBytes / 2 to a new file, maps it
+    // and moves it over the log; the caller holds the lock and closes the old out
+    private void rotate() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(parent, file.getFileName() + ".", ".tmp"); // unique per session
+        try {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                    FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                long size = in.size();
+                MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                int from = (int) Math.max(0, size - maxBytes / 2);
+                while (from > 0 && from < size && src.get(from - 1) != '\n')
+                    from++;
+                src.position(from);
+                while (src.hasRemaining())
+                    ch.write(src);
+            }
+            map(tmp);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        openOut();
+    }
+
+    // Replaces the in-memory view with the lines of source
+    private void map(Path source) throws IOException {
+        MappedByteBuffer buffer = null;
+        int[] starts = new int[1];
+        int count = 0;
+        boolean partial = false;
+        try (FileChannel ch = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("History log too large: " + source);
+            if (size > 0)
+                buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buffer != null) {
+            int end = buffer.limit();
+            starts = new int[1024];
+            for (int i = 0; i < end; i++) {
+                if (buffer.get(i) == '\n') {
+                    if (count + 2 > starts.length)
+                        starts = Arrays.copyOf(starts, starts.length * 2);
+                    starts[++count] = i + 1;
+                }
+            }
+            if (starts[count] < end) { // trailing line without '\n'
+                if (count + 2 > starts.length)
+                    starts = Arrays.copyOf(starts, count + 2);
+                starts[++count] = end + 1;
+                partial = true;
+            }
+        }
+        mapped = buffer;
+        lineStarts = starts;
+        mappedCount = count;
+        needsNewline = partial;
+        appended.clear();
+        index = null;
+        indexedCount = 0;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int size() {
+        return mappedCount + appended.size();
+    }
+
+    /**
+     * The id-th command, oldest first.
+     */
+    String get(int id) {
+        if (id >= mappedCount)
+            return appended.get(id - mappedCount);
+        int start = lineStarts[id];
+        byte[] utf8 = new byte[lineStarts[id + 1] - 1 - start];
+        mapped.get(start, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    void append(String command) throws IOException {
+        byte[] utf8 = (needsNewline ? "\n" + command + "\n" : command + "\n").getBytes(StandardCharsets.UTF_8);
+        needsNewline = false;
+        if (utf8.length > pending.remaining())
+            flush(); // may rotate, which resets appended
+        if (utf8.length > pending.capacity())
+            write(ByteBuffer.wrap(utf8));
+        else
+            pending.put(utf8);
+        appended.add(command);
+    }
+
+    /**
+     * Writes buffered entries, then rotates the log if it is over its cap.
+     */
+    void flush() throws IOException {
+        if (pending.position() > 0) {
+            pending.flip();
+            try {
+                write(pending);
+            } finally {
+                pending.clear();
+            }
+        }
+        if (out.size() > maxBytes)
+            load(false);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        FileLock lock = lockCurrent();
+        try {
+            while (buffer.hasRemaining())
+                out.write(buffer);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * The last n commands, oldest first.
+     */
+    GenericList<String> recent(int n) {
+        GenericList<String> result = new GenericList<>();
+        for (int id = Math.max(0, size() - n); id < size(); id++)
+            result.add(get(id));
+        return result;
+    }
+
+    /**
+     * Distinct commands before entry id end containing (or starting with)
+     * query, ignoring case, most recent first; stops after limit matches.
+     */
+    GenericList<String> search(String query, boolean prefix, int end, int limit) {
+        String q = query.toLowerCase(Locale.ROOT);
+        int[] candidates = null;
+        if (q.length() >= 3) {
+            catchUpIndex();
+            candidates = index.candidates(q);
+        }
+        int n = candidates != null ? candidates.length : size();
+        GenericList<String> result = new GenericList<>();
+        Set<String> seen = new HashSet<>();
+        for (int k = n - 1; k >= 0 && result.size() < limit; k--) {
+            int id = candidates != null ? candidates[k] : k;
+            if (id >= end)
+                continue;
+            String command = get(id);
+            String lower = command.toLowerCase(Locale.ROOT);
+            if ((prefix ? lower.startsWith(q) : lower.contains(q)) && seen.add(command))
+                result.add(command);
+        }
+        return result;
+    }
+
+    private void catchUpIndex() {
+        if (index == null)
+            index = new TrigramPostings();
+        for (; indexedCount < size(); indexedCount++)
+            index.add(get(indexedCount).toLowerCase(Locale.ROOT), indexedCount);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+}
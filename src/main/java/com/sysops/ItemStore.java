@@ -0,0 +1,495 @@
+package com.sysops;
+
+import com.containers.MergeSort;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar storage for a directory listing. Size and mtime live in parallel
+ * long[] columns, the file/directory flag in a bitset, and names in a single
+ * packed UTF-8 arena addressed by an offsets column. Rows are exposed to the
+ * rest of the app as flyweight FileItem/DirectoryItem views that hold only a
+ * store reference and a row number. Views are created on demand and not kept:
+ * two views are equal when they name the same row, and a view decodes its
+ * name once, on first use.
+ *
+ * Rows can be updated in place and deleted (a tombstone: the row keeps its
+ * number, its size is zeroed and it no longer counts), so live changes never
+ * renumber the rows that existing views point at. Once tombstones make up
+ * half of the rows, {@link #compactIfSparse()} reclaims them by renumbering.
+ *
+ * Sorted orders of the live rows by name, size and mtime are kept as int[]
+ * indexes, each built on first use and then patched in place (binary search
+ * plus an array shift) as rows are added, updated or deleted. Ties are broken
+ * by row number, i.e. load order.
+ */
+public class ItemStore {
+    private long[] sizes;
+    private long[] mtimes;
+    private final BitSet directories = new BitSet();
+    private byte[] names;
+    private int[] nameOffsets; // row i spans [nameOffsets[i], nameOffsets[i + 1])
+    private int count;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private Map<String, Integer> rowsByName; // built on first lookup
+
+    public enum SortKey {
+        NAME, SIZE, MTIME
+    }
+
+    private final int[][] sortIndexes = new int[SortKey.values().length][]; // built on first sort
+
+    public ItemStore() {
+        this(64);
+    }
+
+    public ItemStore(int expectedRows) {
+        int cap = Math.max(expectedRows, 1);
+        this.sizes = new long[cap];
+        this.mtimes = new long[cap];
+        this.nameOffsets = new int[cap + 1];
+        this.names = new byte[cap * 16];
+    }
+
+    /**
+     * Number of rows ever added, including deleted ones (the row-number
+     * bound for iteration).
+     */
+    public int size() {
+        return count;
+    }
+
+    public int liveRows() {
+        return count - deletedCount;
+    }
+
+    /**
+     * Appends a row and returns its row number.
+     */
+    public int add(String name, long size, long lastModified, boolean directory) {
+        if (count == sizes.length) {
+            int cap = count + (count >> 1) + 1;
+            sizes = Arrays.copyOf(sizes, cap);
+            mtimes = Arrays.copyOf(mtimes, cap);
+            nameOffsets = Arrays.copyOf(nameOffsets, cap + 1);
+        }
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        int start = nameOffsets[count];
+        if (start + utf8.length > names.length)
+            names = Arrays.copyOf(names, Math.max(start + utf8.length, names.length + (names.length >> 1)));
+        System.arraycopy(utf8, 0, names, start, utf8.length);
+        nameOffsets[count + 1] = start + utf8.length;
+        sizes[count] = size;
+        mtimes[count] = lastModified;
+        if (directory)
+            directories.set(count);
+        if (rowsByName != null)
+            rowsByName.put(name, count);
+        int row = count++;
+        for (SortKey key : SortKey.values())
+            indexInsert(key, row);
+        return row;
+    }
+
+    /**
+     * Replaces the size and mtime of a live row.
+     */
+    public void update(int row, long size, long lastModified) {
+        checkLive(row);
+        indexRemove(SortKey.SIZE, row);
+        indexRemove(SortKey.MTIME, row);
+        sizes[row] = size;
+        mtimes[row] = lastModified;
+        indexInsert(SortKey.SIZE, row);
+        indexInsert(SortKey.MTIME, row);
+    }
+
+    /**
+     * Tombstones a row. Its number stays reserved; its view keeps the name
+     * but reports size 0.
+     */
+    public void delete(int row) {
+        checkLive(row);
+        for (SortKey key : SortKey.values())
+            indexRemove(key, row);
+        if (rowsByName != null)
+            rowsByName.remove(name(row));
+        sizes[row] = 0;
+        directories.clear(row);
+        deleted.set(row);
+        deletedCount++;
+    }
+
+    /**
+     * Drops tombstones once they are at least half of the rows (and more than
+     * a handful), renumbering the live rows in load order. Views and row
+     * numbers taken before a compaction are invalid after it.
+     *
+     * @return true if rows were renumbered
+     */
+    public boolean compactIfSparse() {
+        if (deletedCount < 64 || deletedCount * 2 < count)
+            return false;
+        int out = 0;
+        int nameEnd = 0;
+        for (int row = 0; row < count; row++) {
+            if (deleted.get(row))
+                continue;
+            int start = nameOffsets[row], length = nameOffsets[row + 1] - start;
+            System.arraycopy(names, start, names, nameEnd, length); // out <= row: only moves left
+            nameOffsets[out] = nameEnd;
+            nameEnd += length;
+            sizes[out] = sizes[row];
+            mtimes[out] = mtimes[row];
+            directories.set(out, directories.get(row));
+            out++;
+        }
+        nameOffsets[out] = nameEnd;
+        directories.clear(out, count);
+        deleted.clear();
+        deletedCount = 0;
+        count = out;
+        rowsByName = null;
+        Arrays.fill(sortIndexes, null);
+        return true;
+    }
+
+    public boolean isDeleted(int row) {
+        return deleted.get(row);
+    }
+
+    /**
+     * Row number of the live entry with this name, or -1.
+     */
+    public int find(String name) {
+        if (rowsByName == null) {
+            rowsByName = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                if (!deleted.get(i))
+                    rowsByName.put(name(i), i);
+            }
+        }
+        Integer row = rowsByName.get(name);
+        return row == null ? -1 : row;
+    }
+
+    private void checkLive(int row) {
+        if (row < 0 || row >= count || deleted.get(row))
+            throw new IndexOutOfBoundsException("no live row " + row);
+    }
+
+    public String name(int row) {
+        int start = nameOffsets[row];
+        return new String(names, start, nameOffsets[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    public long size(int row) {
+        return sizes[row];
+    }
+
+    public long lastModified(int row) {
+        return mtimes[row];
+    }
+
+    public boolean isDirectory(int row) {
+        return directories.get(row);
+    }
+
+    /**
+     * Extension after the last '.', found by scanning the arena bytes ('.' is
+     * ASCII so it cannot occur inside a multi-byte sequence).
+     */
+    public String extension(int row) {
+        int start = nameOffsets[row];
+        int end = nameOffsets[row + 1];
+        for (int i = end - 1; i > start; i--) {
+            if (names[i] == '.')
+                return FileItem.intern(new String(names, i + 1, end - i - 1, StandardCharsets.UTF_8));
+        }
+        return "";
+    }
+
+    /**
+     * Byte-wise comparison of two names in the arena (UTF-8 byte order is code
+     * point order), without decoding either.
+     */
+    public int compareNames(int a, int b) {
+        int i = nameOffsets[a], iEnd = nameOffsets[a + 1];
+        int j = nameOffsets[b], jEnd = nameOffsets[b + 1];
+        while (i < iEnd && j < jEnd) {
+            int cmp = (names[i++] & 0xff) - (names[j++] & 0xff);
+            if (cmp != 0)
+                return cmp;
+        }
+        return (iEnd - i) - (jEnd - j);
+    }
+
+    /**
+     * Compares two rows on one key only (0 for equal keys).
+     */
+    public int compare(SortKey key, int a, int b) {
+        switch (key) {
+            case NAME:
+                return compareNames(a, b);
+            case SIZE:
+                return Long.compare(sizes[a], sizes[b]);
+            default:
+                return Long.compare(mtimes[a], mtimes[b]);
+        }
+    }
+
+    // Total order used inside the indexes: the key, then load order
+    private int compareIndexed(SortKey key, int a, int b) {
+        int cmp = compare(key, a, b);
+        return cmp != 0 ? cmp : Integer.compare(a, b);
+    }
+
+    /**
+     * Live rows ordered by keys[0], then keys[1], ... (descending where
+     * descending[i] is set), ties in load order. The first key is served from
+     * its index; later keys only re-sort runs of equal first-key values.
+     */
+    public int[] sortedRows(SortKey[] keys, boolean[] descending) {
+        int[] index = sortIndex(keys[0]);
+        int n = liveRows();
+        int[] out = new int[n];
+        int pos = 0;
+        // Walk runs of equal primary key; descending reverses the runs, not their contents
+        int runs = 0;
+        int[] runStarts = new int[Math.min(n, 1024) + 1];
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || compare(keys[0], index[i - 1], index[i]) != 0) {
+                if (runs + 1 >= runStarts.length)
+                    runStarts = Arrays.copyOf(runStarts, runStarts.length * 2);
+                runStarts[runs++] = i;
+            }
+        }
+        runStarts[runs] = n;
+        for (int r = 0; r < runs; r++) {
+            int run = descending[0] ? runs - 1 - r : r;
+            int from = runStarts[run], to = runStarts[run + 1];
+            System.arraycopy(index, from, out, pos, to - from);
+            if (keys.length > 1 && to - from > 1)
+                MergeSort.sort(out, pos, pos + to - from, (a, b) -> {
+                    for (int k = 1; k < keys.length; k++) {
+                        int cmp = compare(keys[k], a, b);
+                        if (cmp != 0)
+                            return descending[k] ? -cmp : cmp;
+                    }
+                    return Integer.compare(a, b);
+                });
+            pos += to - from;
+        }
+        return out;
+    }
+
+    private int[] sortIndex(SortKey key) {
+        int[] index = sortIndexes[key.ordinal()];
+        if (index == null) {
+            index = new int[Math.max(sizes.length, 1)];
+            int n = 0;
+            for (int row = 0; row < count; row++)
+                if (!deleted.get(row))
+                    index[n++] = row;
+            MergeSort.sort(index, 0, n, (a, b) -> compareIndexed(key, a, b));
+            sortIndexes[key.ordinal()] = index;
+        }
+        return index;
+    }
+
+    // Position of row in a built index, or the insertion point (-pos - 1)
+    private int indexSearch(SortKey key, int[] index, int n, int row) {
+        int lo = 0, hi = n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareIndexed(key, index[mid], row);
+            if (cmp < 0)
+                lo = mid + 1;
+            else if (cmp > 0)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -lo - 1;
+    }
+
+    // Call after the row is live; n excludes it
+    private void indexInsert(SortKey key, int row) {
+        int[] index = sortIndexes[key.ordinal()];
+        if (index == null)
+            return;
+        int n = liveRows() - 1;
+        if (n + 1 > index.length)
+            sortIndexes[key.ordinal()] = index = Arrays.copyOf(index, index.length + (index.length >> 1) + 1);
+        int at = -indexSearch(key, index, n, row) - 1;
+        System.arraycopy(index, at, index, at + 1, n - at);
+        index[at] = row;
+    }
+
+    // Call while the row is live and still holds the values it was indexed under
+    private void indexRemove(SortKey key, int row) {
+        int[] index = sortIndexes[key.ordinal()];
+        if (index == null)
+            return;
+        int n = liveRows();
+        int at = indexSearch(key, index, n, row);
+        System.arraycopy(index, at + 1, index, at, n - at - 1);
+    }
+
+    public int directoryCount() {
+        return directories.cardinality();
+    }
+
+    public int fileCount() {
+        return liveRows() - directoryCount();
+    }
+
+    /**
+     * Live rows whose size is above (or below) limit, scanned straight off the
+     * size column.
+     */
+    public IntStream rowsBySize(long limit, boolean greaterThan) {
+        long[] col = sizes;
+        IntStream rows = IntStream.range(0, count)
+                .filter(i -> greaterThan ? col[i] > limit : col[i] < limit);
+        return deletedCount == 0 ? rows : rows.filter(i -> !deleted.get(i));
+    }
+
+    /**
+     * Live rows in load order.
+     */
+    public IntStream rows() {
+        IntStream rows = IntStream.range(0, count);
+        return deletedCount == 0 ? rows : rows.filter(i -> !deleted.get(i));
+    }
+
+    /**
+     * A new flyweight view of a row; equal to every other view of that row.
+     */
+    public FileSystemItem view(int row) {
+        if (row < 0 || row >= count)
+            throw new IndexOutOfBoundsException("row out of range");
+        return isDirectory(row) ? new DirectoryView(this, row) : new FileView(this, row);
+    }
+
+    /**
+     * Row number behind a view of this store, or -1 for any other item.
+     */
+    public int rowOf(FileSystemItem item) {
+        if (item instanceof StoredItem && ((StoredItem) item).store() == this)
+            return ((StoredItem) item).row();
+        return -1;
+    }
+
+    interface StoredItem {
+        ItemStore store();
+
+        int row();
+    }
+
+    private static final class FileView extends FileItem implements StoredItem {
+        private final ItemStore store;
+        private final int row;
+
+        FileView(ItemStore store, int row) {
+            super(null, 0, null, null);
+            this.store = store;
+            this.row = row;
+        }
+
+        @Override
+        public ItemStore store() {
+            return store;
+        }
+
+        @Override
+        public int row() {
+            return row;
+        }
+
+        @Override
+        public String getName() {
+            if (name == null)
+                name = store.name(row); // rows are never renamed
+            return name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StoredItem && ((StoredItem) o).store() == store && ((StoredItem) o).row() == row;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(store) * 31 + row;
+        }
+
+        @Override
+        public long getSize() {
+            return store.size(row);
+        }
+
+        @Override
+        public long getLastModifiedMillis() {
+            return store.lastModified(row);
+        }
+
+        @Override
+        public String getExtension() {
+            return store.extension(row);
+        }
+    }
+
+    private static final class DirectoryView extends DirectoryItem implements StoredItem {
+        private final ItemStore store;
+        private final int row;
+
+        DirectoryView(ItemStore store, int row) {
+            super(null, 0, 0L);
+            this.store = store;
+            this.row = row;
+        }
+
+        @Override
+        public ItemStore store() {
+            return store;
+        }
+
+        @Override
+        public int row() {
+            return row;
+        }
+
+        @Override
+        public String getName() {
+            if (name == null)
+                name = store.name(row); // rows are never renamed
+            return name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StoredItem && ((StoredItem) o).store() == store && ((StoredItem) o).row() == row;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(store) * 31 + row;
+        }
+
+        @Override
+        public long getSize() {
+            return store.size(row);
+        }
+
+        @Override
+        public long getLastModifiedMillis() {
+            return store.lastModified(row);
+        }
+    }
+}
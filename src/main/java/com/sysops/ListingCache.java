@@ -0,0 +1,125 @@
+package com.sysops;
+
+import com.containers.IndexedPriorityQueue;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of loaded directory listings, keyed by canonical path.
+ * An entry is bounded both by count and by the total number of rows held, and
+ * is revalidated on lookup by comparing the directory's current mtime with
+ * the one recorded before it was listed (one stat instead of a full listing).
+ *
+ * A directory's mtime changes when entries are created, deleted or renamed,
+ * not when an existing file is rewritten in place; use
+ * {@link #invalidate(File)} to force a reload in that case.
+ */
+class ListingCache {
+
+    /**
+     * A loaded listing plus the derived state that is expensive to rebuild.
+     */
+    static final class Entry {
+        final ItemStore store;
+        final long directoryMtime;
+        final int rows; // row count charged against the cache budget
+        IndexedPriorityQueue<FileItem> largestFiles; // built on first use
+        String sort; // display order picked by the last sort, null for load order
+
+        Entry(ItemStore store, long directoryMtime) {
+            this.store = store;
+            this.directoryMtime = directoryMtime;
+            this.rows = store.size();
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxRows;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // access order
+    private long rows;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ListingCache(int maxEntries, long maxRows) {
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+    }
+
+    private static String key(File dir) {
+        try {
+            return dir.getCanonicalPath();
+        } catch (IOException e) {
+            return dir.getAbsolutePath();
+        }
+    }
+
+    /**
+     * @return the cached listing if it is still current, otherwise null (a
+     *         stale entry is dropped).
+     */
+    Entry get(File dir) {
+        String k = key(dir);
+        Entry e = entries.get(k);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        if (dir.lastModified() != e.directoryMtime) {
+            remove(k);
+            misses++;
+            return null;
+        }
+        hits++;
+        return e;
+    }
+
+    /**
+     * Caches a listing. directoryMtime must be read before the directory was
+     * listed so a concurrent change shows up as stale on the next lookup.
+     */
+    Entry put(File dir, long directoryMtime, ItemStore store) {
+        Entry e = new Entry(store, directoryMtime);
+        String k = key(dir);
+        remove(k);
+        if (e.rows > maxRows)
+            return e; // too large to cache; still usable by the caller
+        entries.put(k, e);
+        rows += e.rows;
+        evict();
+        return e;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || rows > maxRows) && it.hasNext()) {
+            rows -= it.next().getValue().rows;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(String k) {
+        Entry old = entries.remove(k);
+        if (old != null)
+            rows -= old.rows;
+    }
+
+    void invalidate(File dir) {
+        remove(key(dir));
+    }
+
+    void clear() {
+        entries.clear();
+        rows = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d listings, %d/%d rows, %d hits, %d misses, %d evictions",
+                entries.size(), maxEntries, rows, maxRows, hits, misses, evictions);
+    }
+}
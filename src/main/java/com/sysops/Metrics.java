@@ -0,0 +1,115 @@
+package com.sysops;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.Timespan;
+
+/**
+ * Per-command and per-phase latency tracking (stats command). Call sites use
+ *
+ * <pre>
+ * long t = Metrics.start();
+ * ...
+ * Metrics.stop("load.list", t);
+ * </pre>
+ *
+ * When neither the histograms (sysops.metrics / "stats on") nor a JFR
+ * recording is active, start() is a field read returning 0 and stop() returns
+ * immediately, so instrumentation can stay in place. While a recording is
+ * running every measurement is also committed as a com.sysops.Phase event.
+ */
+final class Metrics {
+    private static volatile boolean histograms = !"false".equals(System.getProperty("sysops.metrics"));
+    private static volatile boolean recording;
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    static {
+        // Does not initialize JFR itself; fires once something starts a recording
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording r) {
+                updateRecording();
+            }
+        });
+        if (FlightRecorder.isInitialized())
+            updateRecording(); // e.g. -XX:StartFlightRecording before this class loaded
+    }
+
+    private static void updateRecording() {
+        boolean running = false;
+        for (Recording each : FlightRecorder.getFlightRecorder().getRecordings())
+            running |= each.getState() == RecordingState.RUNNING;
+        recording = running;
+    }
+
+    @Name("com.sysops.Phase")
+    @Label("SysOps Phase")
+    @Category("SysOps")
+    @Description("One timed command or internal phase of the SysOps CLI")
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    private Metrics() {
+    }
+
+    static boolean isEnabled() {
+        return histograms;
+    }
+
+    static void setEnabled(boolean on) {
+        histograms = on;
+    }
+
+    /**
+     * @return a start timestamp, or 0 if nothing is being measured
+     */
+    static long start() {
+        return histograms || recording ? System.nanoTime() : 0L;
+    }
+
+    static void stop(String phase, long start) {
+        if (start == 0L)
+            return;
+        record(phase, System.nanoTime() - start);
+    }
+
+    static void record(String phase, long nanos) {
+        if (histograms)
+            HISTOGRAMS.computeIfAbsent(phase, p -> new LatencyHistogram()).record(nanos);
+        if (recording) {
+            PhaseEvent e = new PhaseEvent();
+            if (e.isEnabled()) {
+                e.phase = phase;
+                e.elapsed = nanos;
+                e.commit();
+            }
+        }
+    }
+
+    static void reset() {
+        HISTOGRAMS.clear();
+    }
+
+    /**
+     * @return histograms by phase name, sorted by name
+     */
+    static Map<String, LatencyHistogram> snapshot() {
+        return new TreeMap<>(HISTOGRAMS);
+    }
+}
@@ -1,14 +1,47 @@
 package com.sysops;
 
 import com.containers.*;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
 import java.util.Scanner;
-import java.util.Date;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class SysOpsApp {
-    // 1. Heterogeneous List: Stores current view
-    private static GenericList<FileSystemItem> currentDirectoryItems = new GenericList<>();
+    // 1. Columnar store behind the current view. Rows are shown through
+    // FileItem/DirectoryItem flyweights created as they are printed; a sort
+    // only picks which of the store's sorted indexes to show (e.g.
+    // "size:desc name", null for load order)
+    private static ItemStore currentStore = new ItemStore();
+    private static String currentSort;
+
+    // Listings at least this large are scanned with parallel streams
+    static final int PARALLEL_SCAN_THRESHOLD = 20_000;
 
     // 2. Stack: Navigation History (Stores the previous File directory)
     private static Stack<File> navigationStack = new Stack<>();
@@ -18,183 +51,707 @@ public class SysOpsApp {
 
     // 3. Deque: Command History
     private static Deque<String> commandHistory = new Deque<>();
+    // Persistent history across sessions (history command); null if unavailable
+    private static HistoryLog historyLog;
+    private static final long HISTORY_MAX_BYTES = Long.getLong("sysops.historyMaxBytes", 8L << 20);
+
+    // Recently visited listings, so cd/back don't re-list unchanged directories
+    private static final ListingCache listingCache = new ListingCache(32, 2_000_000);
+    private static ListingCache.Entry currentListing;
+
+    // A directory is opened with its first page of rows; the rest is read from
+    // viewLoader only when a command needs the whole listing (fillView).
+    // Directories larger than MAX_LOADED_ROWS are only partly loaded into the
+    // view (never cached); ls --page / --limit stream the rest straight from disk
+    private static final int MAX_LOADED_ROWS = Integer.getInteger("sysops.maxListing", 500_000);
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static boolean currentViewTruncated;
+    private static DirectoryPager viewLoader; // null once the view is complete
+    private static long viewMtime;
+    private static DirectoryPager pager;
+
+    // Last recursive scan (scan command); directory sizes are real here
+    private static DirectoryItem scannedTree;
+    private static File scannedRoot;
+    private static boolean scannedPartial; // last scan was cancelled by --timeout
+
+    // Persistent tree index (index command), mapped at startup if present
+    private static TreeIndex treeIndex;
+
+    // Names of every listing loaded or scanned so far (find --recursive)
+    private static final TrigramIndex nameIndex = new TrigramIndex();
+    private static final int DEFAULT_FIND_LIMIT = 1000;
+
+    // Live mode (watch command): changes are applied between commands
+    private static DirectoryWatcher watcher;
+    // Recursive watch: sizes below the watched root, scanned once on the first
+    // change below a subdirectory and patched per event after that
+    private static DirectoryItem watchedTree;
+    private static ForkJoinPool watchPool; // reused by every watch scan
 
     // 4. PriorityQueue: Top Largest Files (Maintained for current view)
-    private static PriorityQueueCustom<FileItem> largestFiles = new PriorityQueueCustom<>(
-            (f1, f2) -> Long.compare(f2.getSize(), f1.getSize()));
+    private static final Comparator<FileItem> BY_SIZE_DESC = (f1, f2) -> Long.compare(f2.getSize(), f1.getSize());
+    // Indexed so single files can be re-ranked or dropped without a rebuild;
+    // null until largestFiles() first needs it
+    private static IndexedPriorityQueue<FileItem> largestFiles;
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(runBatch(args));
+        }
         Scanner scanner = new Scanner(System.in);
         System.out.println("Welcome to SysOps CLI v2.0");
         System.out.println("Type 'help' for commands.");
 
+        openTreeIndex();
+        openHistoryLog();
+
         // Initialize with real current directory
-        currentDir = new File(System.getProperty("user.dir"));
-        loadDirectory(currentDir);
+        openDirectory(new File(System.getProperty("user.dir")));
 
         while (true) {
             System.out.print("\n" + currentDir.getAbsolutePath() + "> ");
             String input = scanner.nextLine().trim();
             if (input.isEmpty())
                 continue;
+            if (!execute(input.split("\\s+")))
+                return;
+            flushHistoryLog(); // one write per interactive command; batch runs flush once at the end
+        }
+    }
 
-            // Add to history (Deque)
-            commandHistory.addLast(input);
-            if (commandHistory.size() > 10)
-                commandHistory.removeFirst();
+    /**
+     * Non-interactive mode: [--json] [--batch file|-] [command ...].
+     * Commands come from the file (one per line, '#' comments) followed by
+     * any remaining arguments, each a whole command line. Everything is
+     * tokenized up front and output goes through one large buffer that is
+     * flushed only at the end, with no prompt or banner. With --json every
+     * command emits one JSON line: {"command", "output": [lines], "ms"}.
+     *
+     * @return process exit status
+     */
+    static int runBatch(String[] args) {
+        CommandArgs options = new CommandArgs(prepend("sysops", args), "batch");
+        GenericList<String[]> commands = new GenericList<>();
+        String source = options.value("batch");
+        if (source != null) {
+            List<String> lines;
+            try {
+                lines = source.equals("-")
+                        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).lines()
+                                .collect(Collectors.toList())
+                        : Files.readAllLines(Path.of(source), StandardCharsets.UTF_8);
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Cannot read batch file: " + source);
+                return 2;
+            }
+            for (String line : lines)
+                addBatchCommand(commands, line);
+        }
+        for (int i = 0; i < options.positionalCount(); i++)
+            addBatchCommand(commands, options.positional(i));
 
-            String[] parts = input.split("\\s+");
-            String command = parts[0].toLowerCase();
+        PrintStream console = System.out;
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+                false, StandardCharsets.UTF_8);
+        boolean json = options.has("json");
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream capture = new PrintStream(captured, false, StandardCharsets.UTF_8);
+        System.setOut(json ? capture : out);
+        try {
+            openTreeIndex();
+            openHistoryLog();
+            openDirectory(new File(System.getProperty("user.dir")));
+            captured.reset();
+            for (int i = 0; i < commands.size(); i++) {
+                String[] parts = commands.get(i);
+                long start = System.nanoTime();
+                boolean more = execute(parts);
+                if (json) {
+                    capture.flush();
+                    writeJsonLine(out, String.join(" ", parts), captured.toString(StandardCharsets.UTF_8),
+                            System.nanoTime() - start);
+                    captured.reset();
+                }
+                if (!more)
+                    return 0;
+            }
+            return 0;
+        } finally {
+            stopWatching();
+            closePager();
+            closeViewLoader();
+            closeHistoryLog();
+            out.flush();
+            System.setOut(console);
+        }
+    }
 
-            switch (command) {
-                case "ls":
-                case "list":
-                    listItems();
-                    break;
-                case "cd":
-                    if (parts.length < 2)
-                        System.out.println("Usage: cd <dirname>");
-                    else
-                        changeDirectory(parts[1]);
-                    break;
-                case "back":
-                    goBack();
-                    break;
-                case "top":
-                    showTopFiles();
-                    break;
-                case "find":
-                    if (parts.length < 2)
-                        System.out.println("Usage: find <name>");
-                    else
-                        findItems(parts[1]);
-                    break;
-                case "size_gt":
-                    if (parts.length < 2)
-                        System.out.println("Usage: size_gt <bytes>");
-                    else
-                        filterBySize(parts[1], true);
-                    break;
-                case "size_lt":
-                    if (parts.length < 2)
-                        System.out.println("Usage: size_lt <bytes>");
-                    else
-                        filterBySize(parts[1], false);
+    private static String[] prepend(String first, String[] rest) {
+        String[] all = new String[rest.length + 1];
+        all[0] = first;
+        System.arraycopy(rest, 0, all, 1, rest.length);
+        return all;
+    }
+
+    private static void addBatchCommand(GenericList<String[]> commands, String line) {
+        String trimmed = line.trim();
+        if (!trimmed.isEmpty() && !trimmed.startsWith("#"))
+            commands.add(trimmed.split("\\s+"));
+    }
+
+    private static void writeJsonLine(PrintStream out, String command, String output, long nanos) {
+        StringBuilder sb = new StringBuilder(output.length() + 64);
+        sb.append("{\"command\":");
+        appendJsonString(sb, command);
+        sb.append(",\"output\":[");
+        String[] lines = output.split("\\R");
+        boolean first = true;
+        for (String line : lines) {
+            if (line.isEmpty())
+                continue;
+            if (!first)
+                sb.append(',');
+            appendJsonString(sb, line);
+            first = false;
+        }
+        sb.append("],\"ms\":").append(String.format(Locale.ROOT, "%.3f", nanos / 1e6)).append('}');
+        out.println(sb);
+    }
+
+    private static void appendJsonString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
                     break;
-                case "sort":
-                    if (parts.length < 2)
-                        System.out.println("Usage: sort <name|size>");
-                    else
-                        sortItems(parts[1]);
+                case '\\':
+                    sb.append("\\\\");
                     break;
-                case "analyse":
-                case "analyze":
-                    if (parts.length < 2)
-                        analyzePath(null); // Analyze current
-                    else
-                        analyzePath(parts[1]); // Analyze target
+                case '\n':
+                    sb.append("\\n");
                     break;
-                case "history":
-                    showHistory();
+                case '\r':
+                    sb.append("\\r");
                     break;
-                case "help":
-                    printHelp();
+                case '\t':
+                    sb.append("\\t");
                     break;
-                case "exit":
-                    System.out.println("Goodbye!");
-                    return;
                 default:
-                    System.out.println("Unknown command.");
+                    if (c < 0x20)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
             }
         }
+        sb.append('"');
     }
 
-    private static void loadDirectory(File dir) {
-        currentDirectoryItems = new GenericList<>();
-        File[] files = dir.listFiles();
+    /**
+     * Runs one tokenized command line against the current state.
+     *
+     * @return false once the session should end ("exit")
+     */
+    // Commands that never read the current view's rows (ls streams it itself)
+    private static final Set<String> VIEW_INDEPENDENT = Set.of("ls", "list", "cd", "back", "refresh", "cache",
+            "history", "stats", "help", "exit");
+
+    static boolean execute(String[] parts) {
+        // Add to history (Deque for this session, log across sessions)
+        String line = String.join(" ", parts);
+        commandHistory.addLast(line);
+        if (commandHistory.size() > 10)
+            commandHistory.removeFirst();
+        if (historyLog != null) {
+            try {
+                historyLog.append(line);
+            } catch (IOException e) {
+                System.out.println("History log disabled: " + e.getMessage());
+                closeHistoryLog();
+            }
+        }
+
+        String command = parts[0].toLowerCase();
+        String phase = "cmd." + command;
+        long started = Metrics.start();
 
-        if (files != null) {
-            for (File f : files) {
-                if (f.isDirectory()) {
-                    // For directories, we don't know the size or children count without recursion,
-                    // so we'll just store 0/empty for now to keep it fast.
-                    currentDirectoryItems.add(new DirectoryItem(f.getName(), 0, new Date(f.lastModified())));
+        applyPendingChanges();
+        if (!VIEW_INDEPENDENT.contains(command))
+            fillView();
+
+        switch (command) {
+            case "ls":
+            case "list":
+                listItems(new CommandArgs(parts, "limit"));
+                break;
+            case "cd":
+                if (parts.length < 2)
+                    System.out.println("Usage: cd <dirname>");
+                else
+                    changeDirectory(parts[1]);
+                break;
+            case "back":
+                goBack();
+                break;
+            case "top":
+                if (parts.length < 2)
+                    showTopFiles();
+                else if (parts.length == 2)
+                    showTopFiles(parts[1]);
+                else
+                    showTopFiles(new CommandArgs(parts, "threads"));
+                break;
+            case "find":
+                if (parts.length < 2)
+                    System.out.println("Usage: find <name> [--recursive] [--limit n] [--case]");
+                else
+                    findItems(new CommandArgs(parts, "limit"));
+                break;
+            case "size_gt":
+                if (parts.length < 2)
+                    System.out.println("Usage: size_gt <bytes>");
+                else
+                    filterBySize(parts[1], true);
+                break;
+            case "size_lt":
+                if (parts.length < 2)
+                    System.out.println("Usage: size_lt <bytes>");
+                else
+                    filterBySize(parts[1], false);
+                break;
+            case "sort":
+                if (parts.length < 2)
+                    System.out.println("Usage: sort <name|size|mtime>[:desc] [...] | sort none");
+                else
+                    sortItems(parts);
+                break;
+            case "analyse":
+            case "analyze":
+                analyzePath(new CommandArgs(parts, "threads"));
+                break;
+            case "scan":
+                scanTree(new CommandArgs(parts, "depth", "threads", "timeout"));
+                break;
+            case "dupes":
+                findDuplicates(new CommandArgs(parts, "threads", "min-size", "limit"));
+                break;
+            case "index":
+                indexCommand(parts.length > 1 ? parts[1] : "status");
+                break;
+            case "snapshot":
+                snapshotCommand(new CommandArgs(parts, "limit"));
+                break;
+            case "watch":
+                watchCommand(new CommandArgs(parts));
+                break;
+            case "refresh":
+                reloadDirectory(currentDir);
+                System.out.println("Reloaded " + currentDir.getName() + ".");
+                break;
+            case "cache":
+                if (parts.length > 1 && parts[1].equals("clear")) {
+                    listingCache.clear();
+                    System.out.println("Listing cache cleared.");
                 } else {
-                    currentDirectoryItems.add(new FileItem(f.getName(), f.length(), new Date(f.lastModified()),
-                            getExtension(f.getName())));
+                    System.out.println("Listing cache: " + listingCache);
                 }
-            }
+                break;
+            case "history":
+                showHistory(new CommandArgs(parts, "limit"));
+                break;
+            case "stats":
+                statsCommand(parts.length > 1 ? parts[1] : "show");
+                break;
+            case "help":
+                printHelp();
+                break;
+            case "exit":
+                stopWatching();
+                closePager();
+                closeViewLoader();
+                closeHistoryLog();
+                System.out.println("Goodbye!");
+                return false;
+            default:
+                System.out.println("Unknown command.");
+                phase = "cmd.unknown"; // keep arbitrary input out of the phase table
         }
-        refreshLargestFiles();
+        Metrics.stop(phase, started);
+        return true;
     }
 
-    private static String getExtension(String name) {
-        int i = name.lastIndexOf('.');
-        if (i > 0) {
-            return name.substring(i + 1);
+    // Package-private entry points below are also driven by the JMH benchmarks
+    static void openDirectory(File dir) {
+        currentDir = dir;
+        loadDirectory(dir);
+    }
+
+    static void loadDirectory(File dir) {
+        if (pager != null && !pager.directory().equals(dir.toPath()))
+            closePager(); // don't hold another directory's stream open across cd/back
+        saveViewState();
+        ListingCache.Entry cached = listingCache.get(dir);
+        if (cached != null) {
+            restoreListing(cached);
+            return;
+        }
+        viewMtime = dir.lastModified(); // before listing, so races read as stale
+        ItemStore indexed = treeIndex != null ? treeIndex.listing(dir.toPath()) : null;
+        currentViewTruncated = false;
+        currentListing = null;
+        currentSort = null;
+        largestFiles = null;
+        if (indexed != null) {
+            currentStore = indexed;
+            completeView(dir);
+            return;
         }
-        return "";
+        currentStore = new ItemStore();
+        try {
+            viewLoader = new DirectoryPager(dir.toPath());
+        } catch (IOException e) {
+            completeView(dir); // unreadable: empty listing, like File.listFiles() returning null
+            return;
+        }
+        readRows(viewLoader, currentStore, DEFAULT_PAGE_SIZE, row -> {
+        });
+        if (!viewLoader.hasMore())
+            fillView();
     }
 
-    private static void refreshLargestFiles() {
-        largestFiles = new PriorityQueueCustom<>((f1, f2) -> Long.compare(f2.getSize(), f1.getSize()));
-        currentDirectoryItems.stream()
-                .filter(item -> item instanceof FileItem)
-                .map(item -> (FileItem) item)
-                .forEach(largestFiles::add);
+    /**
+     * Reads the rest of a partly loaded view (up to MAX_LOADED_ROWS rows), then
+     * indexes and caches it. No-op once the view is complete.
+     */
+    static void fillView() {
+        fillView(row -> {
+        });
+    }
+
+    // added sees each row as it is read, in listing order
+    private static void fillView(IntConsumer added) {
+        if (viewLoader == null)
+            return;
+        File dir = viewLoader.directory().toFile();
+        currentViewTruncated = readRows(viewLoader, currentStore, MAX_LOADED_ROWS - currentStore.size(), added);
+        closeViewLoader();
+        completeView(dir);
+    }
+
+    private static void completeView(File dir) {
+        long t = Metrics.start();
+        nameIndex.indexDirectory(dir.toPath(), currentStore);
+        Metrics.stop("load.nameindex", t);
+        if (currentViewTruncated) {
+            currentListing = null;
+            System.out.println("(" + dir.getName() + " has more than " + MAX_LOADED_ROWS
+                    + " entries: only those are loaded; use ls --page to stream the rest)");
+        } else {
+            currentListing = listingCache.put(dir, viewMtime, currentStore);
+        }
+    }
+
+    private static void closeViewLoader() {
+        if (viewLoader == null)
+            return;
+        try {
+            viewLoader.close();
+        } catch (IOException e) {
+            // nothing useful to report for a read-only stream
+        }
+        viewLoader = null;
+    }
+
+    // Drops any cached listing for dir and lists it again
+    static void reloadDirectory(File dir) {
+        listingCache.invalidate(dir);
+        loadDirectory(dir);
+    }
+
+    private static void saveViewState() {
+        closeViewLoader(); // a partly read view is dropped, not cached
+        if (currentListing != null)
+            currentListing.sort = currentSort;
+    }
+
+    private static void restoreListing(ListingCache.Entry entry) {
+        currentListing = entry;
+        currentViewTruncated = false;
+        currentStore = entry.store;
+        largestFiles = entry.largestFiles;
+        currentSort = entry.sort;
+    }
+
+    private static ItemStore readDirectory(File dir) {
+        ItemStore store = new ItemStore();
+        readDirectory(dir, store, Integer.MAX_VALUE);
+        return store;
+    }
+
+    // Reads up to maxRows entries of one directory level into columns, one stat
+    // per entry. Directories are stored with size 0: we don't know the size or
+    // children count without recursion. Returns true if entries were left over.
+    private static boolean readDirectory(File dir, ItemStore store, int maxRows) {
+        try (DirectoryPager entries = new DirectoryPager(dir.toPath())) {
+            return readRows(entries, store, maxRows, row -> {
+            });
+        } catch (IOException e) {
+            return false; // unreadable: empty listing, like File.listFiles() returning null
+        }
+    }
+
+    // Appends up to maxRows further entries from an open pager
+    private static boolean readRows(DirectoryPager entries, ItemStore store, int maxRows, IntConsumer added) {
+        long t = Metrics.start();
+        long statBefore = entries.statNanos();
+        entries.next(maxRows, (name, a) -> added.accept(store.add(name, a.isDirectory() ? 0 : a.size(),
+                a.lastModifiedTime().toMillis(), a.isDirectory())));
+        boolean more = entries.hasMore();
+        if (t != 0L) {
+            // listing (directory reads + column appends) vs. per-entry stat calls
+            long stat = entries.statNanos() - statBefore;
+            Metrics.record("load.list", System.nanoTime() - t - stat);
+            Metrics.record("load.stat", stat);
+        }
+        return more;
+    }
+
+    // Heap of the current view's files, built on first use and then kept
+    // current by watch updates
+    private static IndexedPriorityQueue<FileItem> largestFiles() {
+        if (largestFiles != null)
+            return largestFiles;
+        long t = Metrics.start();
+        // Bulk constructor heapifies in O(n) rather than n individual adds
+        Iterable<FileItem> files = () -> currentStore.rows()
+                .filter(row -> !currentStore.isDirectory(row))
+                .mapToObj(row -> (FileItem) currentStore.view(row))
+                .iterator();
+        largestFiles = new IndexedPriorityQueue<>(BY_SIZE_DESC, files);
+        if (currentListing != null)
+            currentListing.largestFiles = largestFiles;
+        Metrics.stop("heap.rebuild", t);
+        return largestFiles;
+    }
+
+    // Replaces the current view of dir with already-built items (e.g. from a scan)
+    private static void installView(File dir, long directoryMtime, GenericList<FileSystemItem> items) {
+        saveViewState();
+        ItemStore store = new ItemStore(items.size());
+        items.forEach(item -> store.add(item.getName(), item.getSize(), item.getLastModifiedMillis(),
+                item instanceof DirectoryItem));
+        currentStore = store;
+        currentSort = null;
+        largestFiles = null;
+        currentListing = listingCache.put(dir, directoryMtime, currentStore);
+    }
+
+    // Current view in display order
+    private static Stream<FileSystemItem> itemStream() {
+        IntStream rows = currentSort != null ? Arrays.stream(currentOrder()) : currentStore.rows();
+        return (currentStore.liveRows() >= PARALLEL_SCAN_THRESHOLD ? rows.parallel() : rows)
+                .mapToObj(currentStore::view);
     }
 
     // Functional-OO: Using Streams (lambdas) for display
     private static void listItems() {
         System.out.println("Listing contents of " + currentDir.getName() + ":");
-        currentDirectoryItems.stream()
-                .forEach(System.out::println);
+        for (int row : currentOrder())
+            System.out.println(currentStore.view(row));
+        // Rows not read yet are printed as they come off the directory stream
+        fillView(row -> System.out.println(currentStore.view(row)));
+        if (currentViewTruncated)
+            System.out.println("(listing truncated at " + MAX_LOADED_ROWS + " entries; use ls --page)");
+    }
+
+    private static void listItems(CommandArgs args) {
+        if (!args.has("page") && !args.has("limit")) {
+            listItems();
+            return;
+        }
+        int pageSize;
+        try {
+            pageSize = args.intValue("limit", DEFAULT_PAGE_SIZE);
+        } catch (NumberFormatException e) {
+            pageSize = 0;
+        }
+        if (pageSize <= 0) {
+            System.out.println("Invalid limit.");
+            return;
+        }
+        listPage(args.has("page"), pageSize);
     }
 
-    private static void findItems(String query) {
+    // Streams a page straight from disk. The stream stays open between commands,
+    // so with resume the next page continues where the last one stopped.
+    private static void listPage(boolean resume, int pageSize) {
+        Path dir = currentDir.toPath();
+        if (!resume || pager == null || !pager.directory().equals(dir)) {
+            closePager();
+            try {
+                pager = new DirectoryPager(dir);
+            } catch (IOException e) {
+                System.out.println("Cannot list " + currentDir.getName() + ": " + e.getMessage());
+                return;
+            }
+        }
+        long first = pager.position();
+        System.out.println("Listing contents of " + currentDir.getName() + " (from entry " + (first + 1) + "):");
+        pager.next(pageSize, (name, a) -> System.out.println(DirectoryPager.itemOf(name, a)));
+        if (!pager.hasMore()) {
+            System.out.println("(end of listing, " + pager.position() + " entries)");
+            closePager();
+        } else {
+            System.out.println("(" + pager.position() + " shown; ls --page for more)");
+        }
+    }
+
+    private static void closePager() {
+        if (pager == null)
+            return;
+        try {
+            pager.close();
+        } catch (IOException e) {
+            // nothing useful to report for a read-only stream
+        }
+        pager = null;
+    }
+
+    private static void findItems(CommandArgs args) {
+        String query = args.positional(0);
+        if (query == null) {
+            System.out.println("Usage: find <name> [--recursive] [--limit n] [--case]");
+            return;
+        }
+        if (args.has("recursive") || args.has("limit") || args.has("case")) {
+            findInSubtree(query, args);
+            return;
+        }
         System.out.println("Searching for '" + query + "':");
-        long count = currentDirectoryItems.stream()
+        long t = Metrics.start();
+        List<FileSystemItem> matches = itemStream()
                 .filter(item -> item.getName().contains(query))
-                .peek(System.out::println) // Print matches as they are found
-                .count();
+                .collect(Collectors.toList());
+        Metrics.stop("stream.find", t);
+        matches.forEach(System.out::println);
 
-        if (count == 0) {
+        if (matches.isEmpty()) {
             System.out.println("Not found.");
         }
     }
 
+    // Substring search across every indexed directory at or below currentDir
+    private static void findInSubtree(String query, CommandArgs args) {
+        int limit;
+        try {
+            limit = args.intValue("limit", DEFAULT_FIND_LIMIT);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid limit.");
+            return;
+        }
+        Path base = currentDir.toPath().toAbsolutePath().normalize();
+        System.out.println("Searching for '" + query + "' under " + currentDir.getName()
+                + " (" + nameIndex.directoryCount() + " directories indexed):");
+        int found = nameIndex.search(query, base, args.has("case"), limit,
+                p -> System.out.println("  " + base.relativize(p)));
+        if (found == 0)
+            System.out.println("Not found. (scan first to index the whole subtree)");
+        else if (found == limit)
+            System.out.println("(stopped at " + limit + " matches; use --limit to see more)");
+    }
+
     private static void filterBySize(String sizeStr, boolean greaterThan) {
         try {
             long limit = Long.parseLong(sizeStr);
             String op = greaterThan ? "larger" : "smaller";
             System.out.println("Files " + op + " than " + limit + " bytes:");
-            currentDirectoryItems.stream()
-                    .filter(item -> greaterThan ? item.getSize() > limit : item.getSize() < limit)
-                    .forEach(System.out::println);
+            long t = Metrics.start();
+            if (currentSort == null) {
+                // Scan the size column directly; only matches get a view
+                currentStore.rowsBySize(limit, greaterThan)
+                        .filter(row -> !currentStore.isDirectory(row))
+                        .forEach(row -> System.out.println(currentStore.view(row)));
+            } else {
+                // Walk the sorted order, testing the size column before touching a view
+                for (int row : currentOrder())
+                    if (!currentStore.isDirectory(row)
+                            && (greaterThan ? currentStore.size(row) > limit : currentStore.size(row) < limit))
+                        System.out.println(currentStore.view(row));
+            }
+            Metrics.stop("stream.filter", t);
         } catch (NumberFormatException e) {
             System.out.println("Invalid size format.");
         }
     }
 
-    private static void sortItems(String criterion) {
-        if (criterion.equals("name")) {
-            currentDirectoryItems.sort(Comparator.comparing(FileSystemItem::getName));
-            System.out.println("Sorted by name.");
-        } else if (criterion.equals("size")) {
-            currentDirectoryItems.sort(Comparator.comparingLong(FileSystemItem::getSize));
-            System.out.println("Sorted by size.");
-        } else {
-            System.out.println("Invalid sort criterion. Use 'name' or 'size'.");
+    // sort <key>[:desc] [<key>[:desc] ...] with keys name|size|mtime, or "sort none"
+    // for load order. Served from the store's sorted indexes, so only the first
+    // sort on a key pays O(n log n); later ones (and toggling back) are O(n).
+    private static void sortItems(String[] parts) {
+        if (parts[1].equals("none") || parts[1].equals("load")) {
+            currentSort = null;
+            System.out.println("Showing load order.");
+            listItems();
+            return;
         }
+        String spec = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length));
+        if (parseSortKeys(spec) == null) {
+            System.out.println("Invalid sort criterion. Use name|size|mtime, optionally ':desc', e.g. 'sort size:desc name'.");
+            return;
+        }
+        long t = Metrics.start();
+        currentSort = spec;
+        int[] rows = currentOrder(); // builds the primary index on first use
+        Metrics.stop("sort." + spec.split("[ :]")[0], t);
+        System.out.println("Sorted by " + spec + " (" + rows.length + " entries).");
         listItems();
     }
 
+    // null if any key is unknown
+    private static ItemStore.SortKey[] parseSortKeys(String spec) {
+        String[] terms = spec.split(" ");
+        ItemStore.SortKey[] keys = new ItemStore.SortKey[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            String key = terms[i].endsWith(":desc") || terms[i].endsWith(":asc")
+                    ? terms[i].substring(0, terms[i].indexOf(':')) : terms[i];
+            switch (key) {
+                case "name":
+                    keys[i] = ItemStore.SortKey.NAME;
+                    break;
+                case "size":
+                    keys[i] = ItemStore.SortKey.SIZE;
+                    break;
+                case "mtime":
+                case "time":
+                    keys[i] = ItemStore.SortKey.MTIME;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return keys;
+    }
+
+    // Live rows in the current display order
+    private static int[] currentOrder() {
+        if (currentSort == null)
+            return IntStream.range(0, currentStore.size()).filter(row -> !currentStore.isDeleted(row)).toArray();
+        String[] terms = currentSort.split(" ");
+        boolean[] descending = new boolean[terms.length];
+        for (int i = 0; i < terms.length; i++)
+            descending[i] = terms[i].endsWith(":desc");
+        return currentStore.sortedRows(parseSortKeys(currentSort), descending);
+    }
+
     private static void changeDirectory(String dirName) {
         File target = new File(currentDir, dirName);
         if (target.exists() && target.isDirectory()) {
             navigationStack.push(currentDir);
             currentDir = target;
             loadDirectory(currentDir);
+            rewatch();
             System.out.println("Entered directory: " + dirName);
         } else {
             System.out.println("Directory not found: " + dirName);
@@ -205,6 +762,7 @@ public class SysOpsApp {
         if (!navigationStack.isEmpty()) {
             currentDir = navigationStack.pop();
             loadDirectory(currentDir);
+            rewatch();
             System.out.println("Returned to parent directory.");
             return;
         }
@@ -213,6 +771,7 @@ public class SysOpsApp {
         if (parent != null) {
             currentDir = parent;
             loadDirectory(currentDir);
+            rewatch();
             System.out.println("Returned to parent directory.");
         } else {
             System.out.println("Already at system root.");
@@ -221,82 +780,820 @@ public class SysOpsApp {
 
     private static void showTopFiles() {
         System.out.println("Top Largest Files (PriorityQueue):");
-        FileItem top = largestFiles.peek();
-        if (top != null) {
-            System.out.println("Largest: " + top);
+        if (!largestFiles().isEmpty()) {
+            System.out.println("Largest: " + largestFiles.peek());
         } else {
             System.out.println("No files.");
         }
     }
 
-    private static void showHistory() {
-        System.out.println("Command History (Last 10):");
-        commandHistory.stream().forEach(System.out::println);
+    // Ranks the N largest files through a bounded heap: O(n log N) time, O(N) memory
+    private static void showTopFiles(String countStr) {
+        int n;
+        try {
+            n = Integer.parseInt(countStr);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid count.");
+            return;
+        }
+        if (n <= 0) {
+            System.out.println("Count must be positive.");
+            return;
+        }
+        // Heap of row numbers ranked by the size column (ties in load order), so
+        // views are only built for the rows printed
+        ItemStore store = currentStore;
+        LongHeap topN = LongHeap.topK(n, (a, b) -> {
+            int cmp = Long.compare(store.size((int) b), store.size((int) a));
+            return cmp != 0 ? cmp : Long.compare(a, b);
+        });
+        store.rows()
+                .filter(row -> !store.isDirectory(row))
+                .forEach(topN::add);
+
+        System.out.println("Top " + n + " Largest Files:");
+        if (topN.isEmpty()) {
+            System.out.println("No files.");
+            return;
+        }
+        long[] ranked = topN.toSortedArray();
+        for (int i = 0; i < ranked.length; i++)
+            System.out.printf("%3d. %s%n", i + 1, store.view((int) ranked[i]));
     }
 
-    // Consolidated Analysis Command
-    private static void analyzePath(String path) {
-        GenericList<FileSystemItem> targetList;
+    // top n [path] [--recursive] [--parallel] [--threads n]: streams files from
+    // a walk through a bounded heap instead of listing them into the view
+    private static void showTopFiles(CommandArgs args) {
+        int n, threads;
+        try {
+            n = Integer.parseInt(args.positional(0));
+            threads = args.intValue("threads", args.has("parallel") ? TreeScanner.defaultParallelism() : 1);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid count.");
+            return;
+        }
+        if (n <= 0 || threads <= 0) {
+            System.out.println("Count must be positive.");
+            return;
+        }
+        String path = args.positional(1);
+        File target = path == null ? currentDir : resolvePath(path);
+        boolean recursive = args.has("recursive");
+        TopFilesWalker walker = new TopFilesWalker(n, recursive, threads);
+        long start = System.nanoTime();
+        GenericList<TopFilesWalker.Hit> ranked;
+        try {
+            ranked = walker.walk(target.toPath());
+        } catch (IOException e) {
+            System.out.println("Directory not found: " + (path != null ? path : target));
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
 
-        if (path == null) {
-            targetList = currentDirectoryItems;
-            System.out.println("Analyzing current directory...");
+        Path base = target.toPath();
+        System.out.println("Top " + n + " Largest Files in " + target.getName() + (recursive ? " (recursive)" : "") + ":");
+        if (ranked.isEmpty())
+            System.out.println("No files.");
+        for (int i = 0; i < ranked.size(); i++) {
+            TopFilesWalker.Hit hit = ranked.get(i);
+            System.out.printf("%3d. %s (%d bytes)%n", i + 1, base.relativize(hit.path), hit.size);
+        }
+        System.out.println("(" + walker.filesSeen() + " files examined in " + elapsedMs + " ms"
+                + (walker.errors() > 0 ? ", " + walker.errors() + " unreadable" : "") + ")");
+    }
+
+    // Recursive scan: fills DirectoryItem children and aggregates subtree sizes
+    private static void scanTree(CommandArgs args) {
+        String path = args.positional(0);
+        File target = path == null ? currentDir : resolvePath(path);
+        if (!target.isDirectory()) {
+            System.out.println("Directory not found: " + path);
+            return;
+        }
+        int depth, threads;
+        long timeoutSec;
+        try {
+            depth = args.intValue("depth", TreeScanner.UNLIMITED_DEPTH);
+            threads = args.intValue("threads", TreeScanner.defaultParallelism());
+            timeoutSec = args.longValue("timeout", 0);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid option value.");
+            return;
+        }
+
+        TreeScanner scanner;
+        try {
+            scanner = new TreeScanner(depth, threads);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid option value: " + e.getMessage());
+            return;
+        }
+        long targetMtime = target.lastModified();
+        long start = System.nanoTime();
+        long deadline = timeoutSec > 0 ? start + TimeUnit.SECONDS.toNanos(timeoutSec) : Long.MAX_VALUE;
+        DirectoryItem root;
+        try {
+            root = scanner.scan(target.toPath(), 1000, s -> {
+                System.out.printf("  ... %d dirs, %d files, %d bytes%n",
+                        s.directoriesScanned(), s.filesScanned(), s.bytesScanned());
+                if (System.nanoTime() > deadline)
+                    s.cancel();
+            });
+        } catch (IOException e) {
+            System.out.println("Scan failed: " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Scan interrupted.");
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.println("--- Scan Report ---");
+        if (scanner.isCancelled())
+            System.out.println("(timed out: partial results)");
+        System.out.println("Directories: " + root.getDirectoryCount());
+        System.out.println("Files: " + root.getFileCount());
+        System.out.println("Total Size: " + root.getSize() + " bytes");
+        if (scanner.errors() > 0)
+            System.out.println("Unreadable entries: " + scanner.errors());
+        System.out.println("Elapsed: " + elapsedMs + " ms");
+        System.out.println("-------------------");
+
+        scannedTree = root;
+        scannedRoot = target;
+        scannedPartial = scanner.isCancelled();
+        nameIndex.indexTree(target.toPath(), root); // skips directories the cancel left unlisted
+        // A partial root listing must not replace (or be cached as) the real one
+        if (!scannedPartial && sameFile(target, currentDir))
+            installView(currentDir, targetMtime, root.getChildren()); // current view now shows real directory sizes
+    }
+
+    // dupes [path] [--threads n] [--min-size bytes] [--limit groups]
+    private static void findDuplicates(CommandArgs args) {
+        String path = args.positional(0);
+        File target = path == null ? currentDir : resolvePath(path);
+        if (!target.isDirectory()) {
+            System.out.println("Directory not found: " + path);
+            return;
+        }
+        int threads, limit;
+        long minSize;
+        try {
+            threads = args.intValue("threads", 4); // I/O bound: a few readers saturate most disks
+            minSize = args.longValue("min-size", 1);
+            limit = args.intValue("limit", 20);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid option value.");
+            return;
+        }
+        if (threads <= 0 || limit <= 0) {
+            System.out.println("Invalid option value.");
+            return;
+        }
+
+        DuplicateFinder finder = new DuplicateFinder(threads, minSize);
+        long start = System.nanoTime();
+        GenericList<DuplicateFinder.Group> groups;
+        try {
+            groups = finder.find(target.toPath());
+        } catch (IOException e) {
+            System.out.println("Duplicate search failed: " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Duplicate search interrupted.");
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Path base = target.toPath();
+        long reclaimable = 0;
+        for (int i = 0; i < groups.size(); i++)
+            reclaimable += groups.get(i).reclaimableBytes();
+        System.out.println("--- Duplicate Report ---");
+        for (int i = 0; i < groups.size() && i < limit; i++) {
+            DuplicateFinder.Group g = groups.get(i);
+            System.out.println(g.files.size() + " x " + g.size + " bytes (" + g.reclaimableBytes() + " reclaimable):");
+            for (int j = 0; j < g.files.size(); j++)
+                System.out.println("  " + base.relativize(g.files.get(j)));
+        }
+        if (groups.size() > limit)
+            System.out.println("... " + (groups.size() - limit) + " more groups (use --limit)");
+        System.out.println("Duplicate groups: " + groups.size());
+        System.out.println("Reclaimable: " + reclaimable + " bytes");
+        System.out.println("Files: " + finder.filesScanned() + " scanned, " + finder.sizeCandidates()
+                + " same-size, " + finder.partialCandidates() + " after partial hash");
+        System.out.println("Bytes hashed: " + finder.bytesHashed());
+        if (finder.errors() > 0)
+            System.out.println("Unreadable entries: " + finder.errors());
+        System.out.println("Elapsed: " + elapsedMs + " ms");
+        System.out.println("------------------------");
+    }
+
+    // Absolute paths are taken as-is, anything else is relative to currentDir
+    private static File resolvePath(String path) {
+        File f = new File(path);
+        return f.isAbsolute() ? f : new File(currentDir, path);
+    }
+
+    private static boolean sameFile(File a, File b) {
+        try {
+            return a.getCanonicalFile().equals(b.getCanonicalFile());
+        } catch (IOException e) {
+            return a.getAbsoluteFile().equals(b.getAbsoluteFile());
+        }
+    }
+
+    // Index file location: -Dsysops.index=<file>, default ~/.sysops/tree.idx
+    private static Path indexFile() {
+        String configured = System.getProperty("sysops.index");
+        if (configured != null)
+            return Path.of(configured);
+        return Path.of(System.getProperty("user.home"), ".sysops", "tree.idx");
+    }
+
+    private static void openTreeIndex() {
+        Path file = indexFile();
+        if (!Files.exists(file))
+            return;
+        try {
+            treeIndex = TreeIndex.open(file);
+        } catch (IOException e) {
+            System.out.println("Ignoring tree index " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static void closeTreeIndex() {
+        if (treeIndex == null)
+            return;
+        try {
+            treeIndex.close();
+        } catch (IOException e) {
+            // read-only mapping; nothing to flush
+        }
+        treeIndex = null;
+    }
+
+    private static void indexCommand(String action) {
+        Path file = indexFile();
+        switch (action) {
+            case "save":
+                if (scannedTree == null) {
+                    System.out.println("Nothing to index. Run 'scan' first.");
+                    return;
+                }
+                if (scannedPartial) {
+                    System.out.println("The last scan timed out; rescan before saving an index.");
+                    return;
+                }
+                closeTreeIndex();
+                try {
+                    TreeIndex.write(file, scannedTree, scannedRoot.getCanonicalFile().toPath());
+                } catch (IOException e) {
+                    System.out.println("Cannot write index: " + e.getMessage());
+                }
+                openTreeIndex();
+                if (treeIndex != null)
+                    System.out.println("Indexed " + treeIndex.recordCount() + " entries under "
+                            + treeIndex.root() + " to " + file);
+                break;
+            case "drop":
+                closeTreeIndex();
+                try {
+                    Files.deleteIfExists(file);
+                    System.out.println("Index removed.");
+                } catch (IOException e) {
+                    System.out.println("Cannot remove index: " + e.getMessage());
+                }
+                break;
+            case "status":
+                if (treeIndex == null)
+                    System.out.println("No tree index (" + file + ").");
+                else
+                    System.out.println("Tree index " + file + ": " + treeIndex.recordCount() + " entries under "
+                            + treeIndex.root());
+                break;
+            default:
+                System.out.println("Usage: index [status|save|drop]");
+        }
+    }
+
+    // snapshot save <file> | snapshot diff <old> <new> [--by-delta] [--limit n]
+    private static void snapshotCommand(CommandArgs args) {
+        String action = args.positional(0);
+        if ("save".equals(action) && args.positionalCount() == 2) {
+            if (scannedTree == null) {
+                System.out.println("Nothing to save: run 'scan' first.");
+                return;
+            }
+            if (scannedPartial) {
+                System.out.println("The last scan timed out; rescan before saving a snapshot.");
+                return;
+            }
+            File file = resolvePath(args.positional(1));
+            long start = System.nanoTime();
+            try {
+                long entries = TreeSnapshot.write(file.toPath(), scannedTree, scannedRoot.getAbsolutePath());
+                System.out.println("Saved " + entries + " entries under " + scannedRoot.getAbsolutePath() + " to "
+                        + file + " (" + file.length() + " bytes, "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms).");
+            } catch (IOException e) {
+                System.out.println("Could not save snapshot: " + e.getMessage());
+            }
+        } else if ("diff".equals(action) && args.positionalCount() == 3) {
+            int limit;
+            try {
+                limit = args.intValue("limit", 50);
+            } catch (NumberFormatException e) {
+                limit = 0;
+            }
+            if (limit <= 0) {
+                System.out.println("Invalid limit.");
+                return;
+            }
+            diffSnapshots(resolvePath(args.positional(1)).toPath(), resolvePath(args.positional(2)).toPath(),
+                    args.has("by-delta"), limit);
         } else {
-            File target = new File(currentDir, path);
-            if (!target.exists() || !target.isDirectory()) {
-                System.out.println("Directory not found: " + path);
+            System.out.println("Usage: snapshot save <file> | snapshot diff <old> <new> [--by-delta] [--limit n]");
+        }
+    }
+
+    // Streams the merge-join; --by-delta keeps only the limit largest |size
+    // change| in a bounded heap, otherwise the first limit are printed in path order
+    private static void diffSnapshots(Path oldFile, Path newFile, boolean byDelta, int limit) {
+        Comparator<TreeSnapshot.Difference> byMagnitude = (x, y) -> Long.compare(Math.abs(y.delta()), Math.abs(x.delta()));
+        PriorityQueueCustom<TreeSnapshot.Difference> largest = byDelta ? PriorityQueueCustom.topK(limit, byMagnitude) : null;
+        long[] printed = new long[1];
+        long start = System.nanoTime();
+        TreeSnapshot.DiffSummary summary;
+        try {
+            summary = TreeSnapshot.diff(oldFile, newFile, d -> {
+                if (byDelta)
+                    largest.add(d);
+                else if (printed[0]++ < limit)
+                    printDifference(d);
+            });
+        } catch (NoSuchFileException e) {
+            System.out.println("No such snapshot: " + e.getFile());
+            return;
+        } catch (IOException e) {
+            System.out.println("Diff failed: " + e.getMessage());
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (byDelta) {
+            GenericList<TreeSnapshot.Difference> ranked = largest.toSortedList();
+            for (int i = 0; i < ranked.size(); i++)
+                printDifference(ranked.get(i));
+        }
+        long total = 0;
+        for (long c : summary.counts)
+            total += c;
+        if (!byDelta && total > limit)
+            System.out.println("... " + (total - limit) + " more (use --limit or --by-delta)");
+        System.out.println("--- Snapshot Diff ---");
+        if (!summary.oldRoot.equals(summary.newRoot))
+            System.out.println("Warning: roots differ (" + summary.oldRoot + " vs " + summary.newRoot + ")");
+        for (TreeSnapshot.Change c : TreeSnapshot.Change.values())
+            System.out.printf("%-8s %d%n", c.name().charAt(0) + c.name().substring(1).toLowerCase() + ":",
+                    summary.counts[c.ordinal()]);
+        System.out.println("Net size change: " + (summary.netBytes >= 0 ? "+" : "") + summary.netBytes + " bytes");
+        System.out.println("Entries: " + summary.oldEntries + " -> " + summary.newEntries + " in " + elapsedMs + " ms");
+        if (summary.unlistedDirectories > 0)
+            System.out.println("Not compared: " + summary.unlistedDirectories
+                    + " directories beyond the scan depth of either snapshot");
+        System.out.println("---------------------");
+    }
+
+    private static void printDifference(TreeSnapshot.Difference d) {
+        String path = d.path + (d.directory ? "/" : "");
+        switch (d.change) {
+            case ADDED:
+                System.out.println("+ " + path + (d.directory ? "" : " (" + d.newSize + " bytes)"));
+                break;
+            case REMOVED:
+                System.out.println("- " + path + (d.directory ? "" : " (" + d.oldSize + " bytes)"));
+                break;
+            case TOUCHED:
+                System.out.println("~ " + path + " (modified, same size)");
+                break;
+            default:
+                System.out.printf("%s %s (%d -> %d bytes, %+d)%n", d.change == TreeSnapshot.Change.GROWN ? ">" : "<",
+                        path, d.oldSize, d.newSize, d.delta());
+        }
+    }
+
+    private static void watchCommand(CommandArgs args) {
+        String mode = args.positional(0);
+        if ("on".equals(mode)) {
+            try {
+                if (watcher == null)
+                    watcher = new DirectoryWatcher();
+                watchedTree = null;
+                watcher.watch(currentDir.toPath(), args.has("recursive"));
+            } catch (IOException e) {
+                System.out.println("Cannot watch " + currentDir + ": " + e.getMessage());
+                stopWatching();
                 return;
             }
+            System.out.println("Watching " + currentDir.getName() + " (" + watcher.watchedDirectories()
+                    + " directories).");
+        } else if ("off".equals(mode)) {
+            stopWatching();
+            System.out.println("Watch stopped.");
+        } else if (mode == null) {
+            System.out.println(watcher == null ? "Watch is off."
+                    : "Watching " + watcher.root() + (watcher.isRecursive() ? " (recursive, " : " (")
+                            + watcher.watchedDirectories() + " directories).");
+        } else {
+            System.out.println("Usage: watch [on [--recursive]|off]");
+        }
+    }
 
-            // Temporarily load target directory
-            targetList = new GenericList<>();
-            File[] files = target.listFiles();
-            if (files != null) {
-                for (File f : files) {
-                    if (f.isDirectory()) {
-                        targetList.add(new DirectoryItem(f.getName(), 0, new Date(f.lastModified())));
-                    } else {
-                        targetList.add(new FileItem(f.getName(), f.length(), new Date(f.lastModified()),
-                                getExtension(f.getName())));
-                    }
-                }
+    private static void stopWatching() {
+        watchedTree = null;
+        if (watchPool != null) {
+            watchPool.shutdownNow();
+            watchPool = null;
+        }
+        if (watcher == null)
+            return;
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            // nothing to recover; the watcher thread is a daemon
+        }
+        watcher = null;
+    }
+
+    // Follow the current directory after cd/back
+    private static void rewatch() {
+        watchedTree = null; // sizes of the previous root
+        if (watcher == null)
+            return;
+        try {
+            watcher.watch(currentDir.toPath(), watcher.isRecursive());
+        } catch (IOException e) {
+            System.out.println("Watch stopped: " + e.getMessage());
+            stopWatching();
+        }
+    }
+
+    // Applies coalesced watch events to the current view without re-listing
+    private static void applyPendingChanges() {
+        if (watcher == null)
+            return;
+        fillView(); // events patch rows by name, so every row must be loaded
+        DirectoryWatcher.Changes changes = watcher.drain();
+        if (changes.rescan) {
+            System.out.println("(watch: events overflowed, rescanning " + currentDir.getName() + ")");
+            reloadDirectory(currentDir);
+            rewatch();
+            return;
+        }
+        Path root = watcher.root();
+        boolean recursive = watcher.isRecursive();
+        Set<String> touched = new HashSet<>(); // top-level entries whose subtree changed
+        boolean entriesChanged = false;
+        for (Path p : changes.paths) {
+            if (!p.startsWith(root) || p.equals(root))
+                continue;
+            boolean direct = root.equals(p.getParent());
+            if (direct) {
+                applyEntryChange(p);
+                entriesChanged = true;
             }
-            System.out.println("Analyzing " + path + "...");
+            if (!recursive)
+                continue;
+            touched.add(root.relativize(p).getName(0).toString());
+            if (watchedTree == null && !direct)
+                watchedTree = scanSubtree(root); // once per watch; events only patch it after this
+            if (watchedTree != null)
+                syncWatchedTree(root, p);
+        }
+        if (entriesChanged) {
+            if (currentStore.compactIfSparse())
+                largestFiles = null; // rows were renumbered; rebuilt on next use
+            if (currentListing != null)
+                currentListing.largestFiles = largestFiles;
         }
+        if (watchedTree == null)
+            return;
+        for (String name : touched) {
+            int row = currentStore.find(name);
+            FileSystemItem subtree = watchedTree.getChild(name);
+            if (row >= 0 && currentStore.isDirectory(row) && subtree instanceof DirectoryItem)
+                currentStore.update(row, subtree.getSize(), currentStore.lastModified(row));
+        }
+    }
 
-        // 1. Counts
-        long fileCount = targetList.stream().filter(item -> item instanceof FileItem).count();
-        long dirCount = targetList.stream().filter(item -> item instanceof DirectoryItem).count();
+    // Recursive watch: re-stats the entry p names (or its first ancestor the
+    // tree doesn't have yet) and adds the size difference up the tree
+    private static void syncWatchedTree(Path root, Path p) {
+        Path rel = root.relativize(p);
+        int n = rel.getNameCount();
+        DirectoryItem[] chain = new DirectoryItem[n];
+        chain[0] = watchedTree;
+        int depth = 0;
+        for (; depth < n - 1; depth++) {
+            FileSystemItem next = chain[depth].getChild(rel.getName(depth).toString());
+            if (!(next instanceof DirectoryItem))
+                break;
+            chain[depth + 1] = (DirectoryItem) next;
+        }
+        long delta = syncEntry(chain[depth], root.resolve(rel.subpath(0, depth + 1)));
+        for (int i = 0; i <= depth; i++)
+            chain[i].addToSize(delta);
+    }
 
-        // 2. Avg Size
-        long totalSize = targetList.stream().mapToLong(FileSystemItem::getSize).reduce(0, Long::sum);
-        long totalCount = targetList.stream().count();
-        double avgSize = totalCount > 0 ? (double) totalSize / totalCount : 0.0;
+    // Brings parent's child for path in line with the disk; returns the size change
+    private static long syncEntry(DirectoryItem parent, Path path) {
+        String name = path.getFileName().toString();
+        FileSystemItem old = parent.getChild(name);
+        long oldSize = old == null ? 0 : old.getSize();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            parent.removeChild(name); // gone
+            return -oldSize;
+        }
+        if (attrs.isDirectory()) {
+            if (old instanceof DirectoryItem)
+                return 0; // its entries report their own changes
+            DirectoryItem scanned = scanSubtree(path); // new or moved in: count what it holds
+            if (scanned == null)
+                scanned = new DirectoryItem(name, 0, attrs.lastModifiedTime().toMillis());
+            parent.putChild(scanned);
+            return scanned.getSize() - oldSize;
+        }
+        parent.putChild(new FileItem(name, attrs.size(), attrs.lastModifiedTime().toMillis()));
+        return attrs.size() - oldSize;
+    }
 
-        // 3. Max Size
-        long maxSize = targetList.stream().mapToLong(FileSystemItem::getSize).reduce(0, Long::max);
+    // Full scan on the watch pool; null if the directory vanished
+    private static DirectoryItem scanSubtree(Path dir) {
+        if (watchPool == null)
+            watchPool = new ForkJoinPool(TreeScanner.defaultParallelism());
+        try {
+            return new TreeScanner(TreeScanner.UNLIMITED_DEPTH, watchPool).scan(dir, 1000, null);
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Re-stat one entry of the current directory and upsert or drop its row
+    private static void applyEntryChange(Path p) {
+        String name = p.getFileName().toString();
+        int row = currentStore.find(name);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            attrs = null; // gone
+        }
+        if (row >= 0 && (attrs == null || attrs.isDirectory() != currentStore.isDirectory(row))) {
+            removeRow(row);
+            nameIndex.removeName(currentDir.toPath(), name);
+            row = -1;
+        }
+        if (attrs == null)
+            return;
+        long mtime = attrs.lastModifiedTime().toMillis();
+        if (row < 0) {
+            row = currentStore.add(name, attrs.isDirectory() ? 0 : attrs.size(), mtime, attrs.isDirectory());
+            nameIndex.addName(currentDir.toPath(), name);
+            if (largestFiles != null && !attrs.isDirectory())
+                largestFiles.add((FileItem) currentStore.view(row));
+        } else {
+            long size = attrs.isDirectory() ? currentStore.size(row) : attrs.size();
+            currentStore.update(row, size, mtime);
+            if (largestFiles != null && !attrs.isDirectory())
+                largestFiles.update((FileItem) currentStore.view(row));
+        }
+    }
+
+    private static void removeRow(int row) {
+        if (largestFiles != null && !currentStore.isDirectory(row))
+            largestFiles.removeElement((FileItem) currentStore.view(row)); // views of a row are equal
+        currentStore.delete(row);
+    }
+
+    // stats [show|on|off|reset]
+    private static void statsCommand(String action) {
+        switch (action) {
+            case "on":
+                Metrics.setEnabled(true);
+                System.out.println("Latency metrics on.");
+                return;
+            case "off":
+                Metrics.setEnabled(false);
+                System.out.println("Latency metrics off (JFR events are still emitted while recording).");
+                return;
+            case "reset":
+                Metrics.reset();
+                System.out.println("Latency metrics cleared.");
+                return;
+            case "show":
+                break;
+            default:
+                System.out.println("Usage: stats [on|off|reset]");
+                return;
+        }
+        Map<String, LatencyHistogram> phases = Metrics.snapshot();
+        System.out.println("Latency by command/phase (ms)" + (Metrics.isEnabled() ? ":" : " [collection off]:"));
+        if (phases.isEmpty()) {
+            System.out.println("No samples.");
+            return;
+        }
+        System.out.printf("  %-16s %8s %10s %10s %10s %10s %10s%n", "phase", "count", "mean", "p50", "p90", "p99", "max");
+        phases.forEach((name, h) -> System.out.printf("  %-16s %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n", name, h.count(),
+                h.totalNanos() / 1e6 / h.count(), h.percentile(0.5) / 1e6, h.percentile(0.9) / 1e6,
+                h.percentile(0.99) / 1e6, h.maxNanos() / 1e6));
+    }
+
+    // history [query] [--prefix] [--limit n]: recent commands, or a reverse
+    // search of the persistent log (most recent first)
+    private static void showHistory(CommandArgs args) {
+        StringBuilder terms = new StringBuilder();
+        for (int i = 0; i < args.positionalCount(); i++)
+            terms.append(i > 0 ? " " : "").append(args.positional(i));
+        String query = terms.toString();
+        if (query.isEmpty()) {
+            System.out.println("Command History (Last 10):");
+            if (historyLog != null)
+                historyLog.recent(10).forEach(System.out::println);
+            else
+                commandHistory.forEach(System.out::println);
+            return;
+        }
+        if (historyLog == null) {
+            System.out.println("No history log; searching this session only.");
+            String lower = query.toLowerCase(Locale.ROOT); // case-insensitive, like HistoryLog.search
+            commandHistory.stream().filter(c -> c.toLowerCase(Locale.ROOT).contains(lower))
+                    .forEach(System.out::println);
+            return;
+        }
+        int limit;
+        try {
+            limit = args.intValue("limit", 20);
+        } catch (NumberFormatException e) {
+            limit = 0;
+        }
+        if (limit <= 0) {
+            System.out.println("Invalid limit.");
+            return;
+        }
+        // size() - 1: skip this history command itself
+        GenericList<String> matches = historyLog.search(query, args.has("prefix"), historyLog.size() - 1, limit);
+        System.out.println("History matching '" + query + "' (" + historyLog.size() + " entries searched):");
+        if (matches.isEmpty())
+            System.out.println("Not found.");
+        matches.forEach(c -> System.out.println("  " + c));
+    }
+
+    private static Path historyFile() {
+        String configured = System.getProperty("sysops.history");
+        if (configured != null)
+            return Path.of(configured);
+        return Path.of(System.getProperty("user.home"), ".sysops", "history.log");
+    }
+
+    private static void openHistoryLog() {
+        Path file = historyFile();
+        try {
+            historyLog = HistoryLog.open(file, HISTORY_MAX_BYTES);
+        } catch (IOException e) {
+            System.out.println("History not persisted (" + file + "): " + e.getMessage());
+        }
+    }
+
+    private static void flushHistoryLog() {
+        if (historyLog == null)
+            return;
+        try {
+            historyLog.flush();
+        } catch (IOException e) {
+            System.out.println("History log disabled: " + e.getMessage());
+            closeHistoryLog();
+        }
+    }
+
+    private static void closeHistoryLog() {
+        if (historyLog == null)
+            return;
+        HistoryLog log = historyLog;
+        historyLog = null;
+        try {
+            log.close();
+        } catch (IOException e) {
+            // last commands may be lost; nothing else to do on the way out
+        }
+    }
+
+    // Consolidated Analysis Command
+    static void analyzePath(String path) {
+        analyzePath(path, false, TreeScanner.defaultParallelism());
+    }
+
+    // analyze [path] [--recursive] [--threads n]
+    private static void analyzePath(CommandArgs args) {
+        int threads;
+        try {
+            threads = args.intValue("threads", TreeScanner.defaultParallelism());
+        } catch (NumberFormatException e) {
+            threads = 0;
+        }
+        if (threads <= 0) {
+            System.out.println("Invalid thread count.");
+            return;
+        }
+        analyzePath(args.positional(0), args.has("recursive"), threads);
+    }
+
+    private static void analyzePath(String path, boolean recursive, int threads) {
+        File dir = path == null ? currentDir : resolvePath(path);
+        if (path != null && !dir.isDirectory()) {
+            System.out.println("Directory not found: " + path);
+            return;
+        }
+        System.out.println(path == null ? "Analyzing current directory" + (recursive ? " (recursive)..." : "...")
+                : "Analyzing " + path + (recursive ? " (recursive)..." : "..."));
+
+        // One pass over the listing (or the tree) feeds every statistic below
+        long now = System.currentTimeMillis();
+        DirectorySummary s;
+        if (recursive) {
+            s = DirectorySummary.ofTree(dir.toPath(), threads, now);
+        } else if (path == null) {
+            s = DirectorySummary.of(currentStore, now);
+        } else {
+            ListingCache.Entry cached = listingCache.get(dir);
+            ItemStore indexed = cached == null && treeIndex != null ? treeIndex.listing(dir.toPath()) : null;
+            s = DirectorySummary.of(cached != null ? cached.store : indexed != null ? indexed : readDirectory(dir), now);
+        }
+        long totalCount = s.files + s.directories;
+        double avgSize = totalCount > 0 ? (double) s.totalSize / totalCount : 0.0;
 
         System.out.println("--- Analysis Report ---");
-        System.out.println("Files: " + fileCount);
-        System.out.println("Directories: " + dirCount);
-        System.out.println("Total Size: " + totalSize + " bytes");
+        System.out.println("Files: " + s.files);
+        System.out.println("Directories: " + s.directories);
+        System.out.println("Total Size: " + s.totalSize + " bytes");
         System.out.printf("Average Size: %.2f bytes%n", avgSize);
-        System.out.println("Max File Size: " + maxSize + " bytes");
+        System.out.println("Max File Size: " + s.maxSize + " bytes");
+        if (s.files > 0) {
+            System.out.println("Size percentiles (upper bound): p50 <= " + s.sizePercentile(0.5)
+                    + ", p90 <= " + s.sizePercentile(0.9) + ", p99 <= " + s.sizePercentile(0.99) + " bytes");
+            System.out.println("Age (last modified):");
+            for (int i = 0; i < s.ageBuckets.length; i++)
+                if (s.ageBuckets[i] > 0)
+                    System.out.printf("  %-10s %d%n", DirectorySummary.AGE_LABELS[i], s.ageBuckets[i]);
+            System.out.println("Top extensions by size:");
+            s.extensions.entrySet().stream()
+                    .sorted((x, y) -> Long.compare(y.getValue().bytes, x.getValue().bytes))
+                    .limit(10)
+                    .forEach(e -> System.out.printf("  %-10s %8d files %14d bytes%n",
+                            e.getKey().isEmpty() ? "(none)" : e.getKey(), e.getValue().files, e.getValue().bytes));
+        }
+        if (s.unreadable > 0)
+            System.out.println("Unreadable entries: " + s.unreadable);
         System.out.println("-----------------------");
     }
 
     private static void printHelp() {
         System.out.println("Available Commands:");
-        System.out.println("  ls / list       - List files");
+        System.out.println("  ls / list [--limit n] [--page]");
+        System.out.println("                  - List files (--page: stream the next page from disk)");
         System.out.println("  cd <dir>        - Enter directory");
         System.out.println("  back            - Go to previous directory");
-        System.out.println("  top             - Show largest file");
-        System.out.println("  find <name>     - Search by name");
+        System.out.println("  top [n]         - Show largest file (or the n largest)");
+        System.out.println("  top n [path] [--recursive] [--parallel] [--threads n]");
+        System.out.println("                  - n largest files under a directory, streamed");
+        System.out.println("  find <name> [--recursive] [--limit n] [--case]");
+        System.out.println("                  - Search by name (--recursive: all indexed subdirectories)");
         System.out.println("  size_gt <bytes> - Filter by size (greater than)");
         System.out.println("  size_lt <bytes> - Filter by size (less than)");
-        System.out.println("  sort <crit>     - Sort by 'name' or 'size'");
-        System.out.println("  analyse [path]  - Show statistics (Counts, Avg, Max)");
-        System.out.println("  history         - Show command history");
+        System.out.println("  sort <key>[:desc] [...] - Sort by name|size|mtime (multi-key), 'sort none' for load order");
+        System.out.println("  analyse [path] [--recursive] [--threads n]");
+        System.out.println("                  - Statistics: counts, size percentiles, ages, extensions");
+        System.out.println("  scan [path] [--depth n] [--threads n] [--timeout sec]");
+        System.out.println("                  - Recursive scan with real directory sizes");
+        System.out.println("  dupes [path] [--threads n] [--min-size bytes] [--limit n]");
+        System.out.println("                  - Find duplicate files and reclaimable space");
+        System.out.println("  snapshot save <file> | snapshot diff <old> <new> [--by-delta] [--limit n]");
+        System.out.println("                  - Save the last scan; diff two saved scans");
+        System.out.println("  index [save|drop] - Persist the last scan for instant startup");
+        System.out.println("  watch [on [--recursive]|off]");
+        System.out.println("                  - Keep the view live via filesystem events");
+        System.out.println("  refresh         - Reload the current directory (bypass cache)");
+        System.out.println("  cache [clear]   - Show or clear the listing cache");
+        System.out.println("  stats [on|off|reset] - Per-command latency percentiles");
+        System.out.println("  history [query] [--prefix] [--limit n]");
+        System.out.println("                  - Recent commands, or search the persistent history");
         System.out.println("  exit            - Quit");
     }
 }
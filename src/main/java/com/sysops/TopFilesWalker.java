@@ -0,0 +1,171 @@
+package com.sysops;
+
+import com.containers.ConcurrentQueue;
+import com.containers.GenericList;
+import com.containers.PriorityQueueCustom;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the k largest files below a directory without materializing the
+ * tree: files are streamed from the walk straight into a bounded top-k heap,
+ * so memory stays O(k) however many files there are.
+ *
+ * With parallelism > 1 every directory is a fork-join task and each worker
+ * thread fills its own heap (no contention on the hot path); the per-thread
+ * heaps are merged once the walk completes. Symbolic links are not followed.
+ */
+class TopFilesWalker {
+
+    static final class Hit {
+        final Path path;
+        final long size;
+
+        Hit(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+
+    private static final Comparator<Hit> BY_SIZE_DESC = (a, b) -> Long.compare(b.size, a.size);
+
+    private final int k;
+    private final boolean recursive;
+    private final int parallelism;
+
+    private final LongAdder files = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param recursive   descend into subdirectories (otherwise only root's own files)
+     * @param parallelism worker threads; 1 walks sequentially on the caller
+     */
+    TopFilesWalker(int k, boolean recursive, int parallelism) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be >= 1");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        this.k = k;
+        this.recursive = recursive;
+        this.parallelism = parallelism;
+    }
+
+    long filesSeen() {
+        return files.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return up to k files under root, largest first
+     */
+    GenericList<Hit> walk(Path root) throws IOException {
+        if (!Files.isDirectory(root))
+            throw new IOException("Not a directory: " + root);
+        PriorityQueueCustom<Hit> top = PriorityQueueCustom.topK(k, BY_SIZE_DESC);
+        if (parallelism == 1 || !recursive) {
+            walkSequential(root, top);
+        } else {
+            ConcurrentQueue<PriorityQueueCustom<Hit>> heaps = new ConcurrentQueue<>(); // registered by each worker
+            ThreadLocal<PriorityQueueCustom<Hit>> local = ThreadLocal.withInitial(() -> {
+                PriorityQueueCustom<Hit> heap = PriorityQueueCustom.topK(k, BY_SIZE_DESC);
+                heaps.add(heap);
+                return heap;
+            });
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new WalkTask(root, local));
+            } finally {
+                pool.shutdownNow();
+            }
+            for (PriorityQueueCustom<Hit> heap = heaps.poll(); heap != null; heap = heaps.poll())
+                top.addAll(heap.stream()::iterator);
+        }
+        return top.toSortedList();
+    }
+
+    private void walkSequential(Path root, PriorityQueueCustom<Hit> top) throws IOException {
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), recursive ? Integer.MAX_VALUE : 1,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (!attrs.isDirectory()) {
+                            files.increment();
+                            top.add(new Hit(file, attrs.size()));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        errors.increment();
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                        if (e != null)
+                            errors.increment();
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    private final class WalkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path dir;
+        private final transient ThreadLocal<PriorityQueueCustom<Hit>> heaps;
+
+        WalkTask(Path dir, ThreadLocal<PriorityQueueCustom<Hit>> heaps) {
+            this.dir = dir;
+            this.heaps = heaps;
+        }
+
+        @Override
+        protected void compute() {
+            List<WalkTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                PriorityQueueCustom<Hit> heap = heaps.get();
+                for (Path p : stream) {
+                    BasicFileAttributes a;
+                    try {
+                        a = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        errors.increment();
+                        continue;
+                    }
+                    if (a.isDirectory()) {
+                        WalkTask t = new WalkTask(p, heaps);
+                        t.fork();
+                        subtasks.add(t);
+                    } else {
+                        files.increment();
+                        heap.add(new Hit(p, a.size()));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                errors.increment();
+            }
+            for (WalkTask t : subtasks)
+                t.join();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.sysops;
+
+import com.containers.GenericList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Persistent, memory-mapped index of a scanned FileSystemItem tree.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header   magic "SYSOPSIX", int version, int recordCount, long arenaOffset, long arenaLength
+ * records  recordCount x 40 bytes:
+ *          long size, long mtime, int nameOffset, int nameLength,
+ *          int parent, int firstChild, int childCount, int flags (1 = dir, 2 = listed)
+ * arena    UTF-8 names; record 0's name is the absolute root path
+ * </pre>
+ * Records are written breadth-first so every directory's children are
+ * contiguous, and each child run is sorted by UTF-8 name bytes so path
+ * lookups are a binary search per component. Opening the index maps the file
+ * and reads fields in place; nothing is deserialized up front.
+ */
+class TreeIndex implements Closeable {
+    private static final byte[] MAGIC = "SYSOPSIX".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 40;
+    private static final int FLAG_DIRECTORY = 1;
+    private static final int FLAG_LISTED = 2; // children were recorded (within scan depth)
+
+    // record field offsets
+    private static final int SIZE = 0;
+    private static final int MTIME = 8;
+    private static final int NAME_OFFSET = 16;
+    private static final int NAME_LENGTH = 20;
+    private static final int PARENT = 24;
+    private static final int FIRST_CHILD = 28;
+    private static final int CHILD_COUNT = 32;
+    private static final int FLAGS = 36;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int recordCount;
+    private final int arenaOffset;
+    private final Path root;
+
+    private TreeIndex(FileChannel channel, MappedByteBuffer map) throws IOException {
+        this.channel = channel;
+        this.map = map;
+        byte[] magic = new byte[MAGIC.length];
+        if (map.capacity() >= HEADER_BYTES)
+            map.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC) || map.getInt(8) != VERSION)
+            throw new IOException("not a SysOps tree index");
+        this.recordCount = map.getInt(12);
+        long arenaStart = map.getLong(16);
+        long arenaLength = map.getLong(24);
+        // Records must end where the name arena starts, and the arena must fit
+        if (recordCount <= 0 || arenaStart < HEADER_BYTES
+                || HEADER_BYTES + (long) recordCount * RECORD_BYTES > arenaStart
+                || arenaLength < 0 || arenaStart + arenaLength > map.capacity())
+            throw new IOException("truncated tree index");
+        this.arenaOffset = (int) arenaStart;
+        this.root = Path.of(name(0));
+    }
+
+    /**
+     * Maps an index file read-only.
+     */
+    static TreeIndex open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long length = ch.size();
+            if (length > Integer.MAX_VALUE)
+                throw new IOException("tree index larger than 2 GB is not supported");
+            return new TreeIndex(ch, ch.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes tree (scanned from rootPath) to file. The file is written beside
+     * the target and moved into place, so a reader never maps a partial index.
+     */
+    static void write(Path file, DirectoryItem tree, Path rootPath) throws IOException {
+        Path parentDir = file.toAbsolutePath().getParent();
+        if (parentDir != null)
+            Files.createDirectories(parentDir);
+        Path tmp = Files.createTempFile(parentDir, "tree", ".idx.tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer w = new Writer(out);
+            w.writeTree(tree, rootPath.toAbsolutePath().toString());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    Path root() {
+        return root;
+    }
+
+    int recordCount() {
+        return recordCount;
+    }
+
+    private int base(int record) {
+        return HEADER_BYTES + record * RECORD_BYTES;
+    }
+
+    long size(int record) {
+        return map.getLong(base(record) + SIZE);
+    }
+
+    long lastModified(int record) {
+        return map.getLong(base(record) + MTIME);
+    }
+
+    boolean isDirectory(int record) {
+        return (map.getInt(base(record) + FLAGS) & FLAG_DIRECTORY) != 0;
+    }
+
+    int parent(int record) {
+        return map.getInt(base(record) + PARENT);
+    }
+
+    int firstChild(int record) {
+        return map.getInt(base(record) + FIRST_CHILD);
+    }
+
+    int childCount(int record) {
+        return map.getInt(base(record) + CHILD_COUNT);
+    }
+
+    String name(int record) {
+        int b = base(record);
+        byte[] bytes = new byte[map.getInt(b + NAME_LENGTH)];
+        map.get(arenaOffset + map.getInt(b + NAME_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // unsigned byte comparison of a record's name against key, read in place
+    private int compareName(int record, byte[] key) {
+        int b = base(record);
+        int off = arenaOffset + map.getInt(b + NAME_OFFSET);
+        int len = map.getInt(b + NAME_LENGTH);
+        int n = Math.min(len, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (map.get(off + i) & 0xff) - (key[i] & 0xff);
+            if (cmp != 0)
+                return cmp;
+        }
+        return len - key.length;
+    }
+
+    /**
+     * Record for path, or -1 if it is outside the indexed tree or unknown.
+     */
+    int lookup(Path path) {
+        Path abs = path.toAbsolutePath().normalize();
+        if (!abs.startsWith(root))
+            return -1;
+        int record = 0;
+        for (Path component : root.relativize(abs)) {
+            if (component.toString().isEmpty())
+                continue;
+            byte[] key = component.toString().getBytes(StandardCharsets.UTF_8);
+            int lo = firstChild(record), hi = lo + childCount(record) - 1;
+            int found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = compareName(mid, key);
+                if (cmp < 0)
+                    lo = mid + 1;
+                else if (cmp > 0)
+                    hi = mid - 1;
+                else {
+                    found = mid;
+                    break;
+                }
+            }
+            if (found < 0)
+                return -1;
+            record = found;
+        }
+        return record;
+    }
+
+    /**
+     * Listing of dir as an ItemStore, or null if dir is not indexed, was not
+     * listed when indexed, or has changed since (its mtime no longer matches:
+     * the lazy revalidation is a single stat of the directory).
+     */
+    ItemStore listing(Path dir) {
+        int record = lookup(dir);
+        if (record < 0 || !isDirectory(record))
+            return null;
+        if (dir.toFile().lastModified() != lastModified(record))
+            return null;
+        if ((map.getInt(base(record) + FLAGS) & FLAG_LISTED) == 0)
+            return null; // beyond the scan's depth limit: children were not recorded
+        int first = firstChild(record);
+        int n = childCount(record);
+        ItemStore store = new ItemStore(n);
+        for (int i = first; i < first + n; i++)
+            store.add(name(i), size(i), lastModified(i), isDirectory(i));
+        return store;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Breadth-first writer. Records are streamed out as they are numbered; the
+     * name arena is accumulated and appended, then the header is patched.
+     */
+    private static final class Writer {
+        private final FileChannel out;
+        private final ByteBuffer recordBuf = ByteBuffer.allocate(RECORD_BYTES * 4096);
+        private byte[] arena = new byte[1 << 16];
+        private int arenaLength;
+
+        Writer(FileChannel out) {
+            this.out = out;
+        }
+
+        private static final class Pending {
+            final DirectoryItem dir;
+            final int record;
+            final int firstChild;
+
+            Pending(DirectoryItem dir, int record, int firstChild) {
+                this.dir = dir;
+                this.record = record;
+                this.firstChild = firstChild;
+            }
+        }
+
+        void writeTree(DirectoryItem tree, String rootPath) throws IOException {
+            out.position(HEADER_BYTES);
+            // Breadth-first: when a directory record is written, its children are
+            // reserved the next free run of record numbers. Directories are
+            // dequeued in the same order they reserved, so their children are
+            // written exactly at the reserved positions.
+            ArrayDeque<Pending> queue = new ArrayDeque<>();
+            int rootChildren = tree.getChildren().size();
+            int reserved = 1 + rootChildren;
+            writeRecord(tree.getSize(), tree.getLastModifiedMillis(), rootPath.getBytes(StandardCharsets.UTF_8),
+                    -1, rootChildren > 0 ? 1 : 0, rootChildren, directoryFlags(tree));
+            int written = 1;
+            if (rootChildren > 0)
+                queue.add(new Pending(tree, 0, 1));
+
+            while (!queue.isEmpty()) {
+                Pending p = queue.poll();
+                FileSystemItem[] children = sortedChildren(p.dir);
+                for (int i = 0; i < children.length; i++) {
+                    FileSystemItem c = children[i];
+                    int flags = 0, firstChild = 0, childCount = 0;
+                    if (c instanceof DirectoryItem) {
+                        DirectoryItem d = (DirectoryItem) c;
+                        flags = directoryFlags(d);
+                        childCount = d.getChildren().size();
+                        if (childCount > 0) {
+                            firstChild = reserved;
+                            reserved += childCount;
+                            queue.add(new Pending(d, p.firstChild + i, firstChild));
+                        }
+                    }
+                    writeRecord(c.getSize(), c.getLastModifiedMillis(),
+                            c.getName().getBytes(StandardCharsets.UTF_8), p.record, firstChild, childCount, flags);
+                    written++;
+                }
+            }
+            flush();
+
+            long arenaOffset = HEADER_BYTES + (long) written * RECORD_BYTES;
+            ByteBuffer arenaBuf = ByteBuffer.wrap(arena, 0, arenaLength);
+            while (arenaBuf.hasRemaining())
+                out.write(arenaBuf, arenaOffset + arenaBuf.position());
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.put(MAGIC).putInt(VERSION).putInt(written).putLong(arenaOffset).putLong(arenaLength).flip();
+            while (header.hasRemaining())
+                out.write(header, header.position());
+            out.force(true);
+        }
+
+        private static int directoryFlags(DirectoryItem d) {
+            return FLAG_DIRECTORY | (d.isListed() ? FLAG_LISTED : 0);
+        }
+
+        private void writeRecord(long size, long mtime, byte[] name, int parent, int firstChild, int childCount,
+                int flags) throws IOException {
+            if (arenaLength + name.length > arena.length)
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLength + name.length));
+            System.arraycopy(name, 0, arena, arenaLength, name.length);
+            recordBuf.putLong(size).putLong(mtime).putInt(arenaLength).putInt(name.length)
+                    .putInt(parent).putInt(firstChild).putInt(childCount).putInt(flags);
+            arenaLength += name.length;
+            if (!recordBuf.hasRemaining())
+                flush();
+        }
+
+        private void flush() throws IOException {
+            recordBuf.flip();
+            while (recordBuf.hasRemaining())
+                out.write(recordBuf);
+            recordBuf.clear();
+        }
+
+        private static FileSystemItem[] sortedChildren(DirectoryItem dir) {
+            GenericList<FileSystemItem> list = dir.getChildren();
+            FileSystemItem[] a = new FileSystemItem[list.size()];
+            for (int i = 0; i < a.length; i++)
+                a[i] = list.get(i);
+            Arrays.sort(a, Comparator.comparing((FileSystemItem f) -> f.getName().getBytes(StandardCharsets.UTF_8),
+                    Arrays::compareUnsigned));
+            return a;
+        }
+    }
+}
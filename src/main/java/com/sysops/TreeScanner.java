@@ -0,0 +1,213 @@
+package com.sysops;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Recursive directory scanner. Every directory is a fork-join task, so
+ * sibling subtrees are listed and stat'ed concurrently; the pool is sized
+ * above the core count because the work is dominated by blocking filesystem
+ * calls. Produces a DirectoryItem tree with children filled in and subtree
+ * sizes/counts aggregated bottom-up. Symbolic links are not followed.
+ *
+ * A scanner is single-use. {@link #cancel()} stops descending and returns the
+ * partial tree built so far. Callers that scan repeatedly (watch mode) can
+ * pass in a long-lived pool instead of paying for a new one per scan.
+ */
+public class TreeScanner {
+    public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+    private final int maxDepth;
+    private final int parallelism;
+    private final ForkJoinPool sharedPool; // null: a pool per scan
+    private volatile boolean cancelled;
+
+    private final LongAdder directories = new LongAdder();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param maxDepth    levels below the root to descend into; directories
+     *                    deeper than this are recorded but not listed
+     * @param parallelism worker threads (disk-bound, so more than cores helps)
+     */
+    public TreeScanner(int maxDepth, int parallelism) {
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("maxDepth must be >= 0");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        this.maxDepth = maxDepth;
+        this.parallelism = parallelism;
+        this.sharedPool = null;
+    }
+
+    /**
+     * Scans on pool, which the scanner does not shut down.
+     */
+    public TreeScanner(int maxDepth, ForkJoinPool pool) {
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("maxDepth must be >= 0");
+        this.maxDepth = maxDepth;
+        this.parallelism = pool.getParallelism();
+        this.sharedPool = pool;
+    }
+
+    public static int defaultParallelism() {
+        return Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Scans root and blocks until done or cancelled, invoking progress on the
+     * calling thread every progressIntervalMillis.
+     */
+    public DirectoryItem scan(Path root, long progressIntervalMillis, Consumer<TreeScanner> progress)
+            throws IOException, InterruptedException {
+        BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        if (!attrs.isDirectory())
+            throw new IOException("Not a directory: " + root);
+        Path name = root.getFileName();
+        ScanTask rootTask = new ScanTask(root, name != null ? name.toString() : root.toString(),
+                attrs.lastModifiedTime().toMillis(), 0);
+
+        ForkJoinPool pool = sharedPool != null ? sharedPool : new ForkJoinPool(parallelism);
+        ForkJoinTask<DirectoryItem> running = null;
+        try {
+            running = pool.submit(rootTask);
+            while (true) {
+                try {
+                    return running.get(progressIntervalMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (progress != null)
+                        progress.accept(this);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    throw new IOException(cause);
+                }
+            }
+        } finally {
+            if (pool != sharedPool)
+                pool.shutdownNow();
+            else if (running != null && !running.isDone())
+                cancel(); // leave the shared pool; its tasks wind down on their own
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long directoriesScanned() {
+        return directories.sum();
+    }
+
+    public long filesScanned() {
+        return files.sum();
+    }
+
+    public long bytesScanned() {
+        return bytes.sum();
+    }
+
+    /**
+     * Entries that could not be listed or stat'ed (permissions, races).
+     */
+    public long errors() {
+        return errors.sum();
+    }
+
+    private final class ScanTask extends RecursiveTask<DirectoryItem> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path path;
+        private final String name;
+        private final long lastModified;
+        private final int depth;
+
+        ScanTask(Path path, String name, long lastModified, int depth) {
+            this.path = path;
+            this.name = name;
+            this.lastModified = lastModified;
+            this.depth = depth;
+        }
+
+        @Override
+        protected DirectoryItem compute() {
+            DirectoryItem dir = new DirectoryItem(name, 0, lastModified);
+            long size = 0, fileCount = 0, dirCount = 0;
+            boolean complete = false;
+            List<ScanTask> subtasks = new ArrayList<>();
+
+            if (!cancelled) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                    for (Path p : stream) {
+                        if (cancelled)
+                            break;
+                        BasicFileAttributes a;
+                        try {
+                            a = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException e) {
+                            errors.increment();
+                            continue;
+                        }
+                        String childName = p.getFileName().toString();
+                        long mtime = a.lastModifiedTime().toMillis();
+                        if (a.isDirectory()) {
+                            if (depth < maxDepth) {
+                                ScanTask t = new ScanTask(p, childName, mtime, depth + 1);
+                                t.fork();
+                                subtasks.add(t);
+                            } else {
+                                dir.addChild(new DirectoryItem(childName, 0, mtime));
+                                dirCount++;
+                            }
+                        } else {
+                            dir.addChild(new FileItem(childName, a.size(), mtime));
+                            size += a.size();
+                            fileCount++;
+                            files.increment();
+                            bytes.add(a.size());
+                        }
+                    }
+                    complete = !cancelled;
+                } catch (IOException | DirectoryIteratorException e) {
+                    errors.increment(); // keep whatever was listed before the failure
+                }
+            }
+
+            for (ScanTask t : subtasks) {
+                DirectoryItem child = t.join();
+                dir.addChild(child);
+                size += child.getSize();
+                fileCount += child.getFileCount();
+                dirCount += 1 + child.getDirectoryCount();
+            }
+            dir.setTotals(size, fileCount, dirCount, complete);
+            directories.increment();
+            return dir;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.sysops;
+
+import com.containers.GenericList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Compact on-disk snapshot of a scanned tree, and a streaming diff between
+ * two snapshots.
+ *
+ * A snapshot is every entry below the root in path order, where a path is its
+ * UTF-8 components joined by a 0 byte. Because 0 sorts below every other
+ * byte, plain unsigned byte order is the same as comparing component by
+ * component, which is the order a depth-first walk with name-sorted children
+ * produces. Records are front-coded against the previous path:
+ *
+ * <pre>
+ * header : "SYSOPSSN" version:int root:UTF
+ * record : flags:byte shared:varint suffixLength:varint suffix size:varlong mtime:varlong
+ * end    : 0xFF count:long
+ * </pre>
+ *
+ * Diffing is a merge-join of two readers, so it is linear in the entry count
+ * and holds one record of each side at a time. A directory the scan did not
+ * list (beyond --depth) has no FLAG_LISTED; its subtree is skipped on both
+ * sides rather than reported as added or removed.
+ */
+class TreeSnapshot {
+    private static final byte[] MAGIC = "SYSOPSSN".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    private static final int FLAG_DIRECTORY = 1;
+    private static final int FLAG_LISTED = 2; // children were recorded (within scan depth)
+    private static final int END = 0xFF;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    enum Change {
+        ADDED, REMOVED, GROWN, SHRUNK, TOUCHED
+    }
+
+    /**
+     * One difference between two snapshots.
+     */
+    static final class Difference {
+        final Change change;
+        final String path; // '/'-separated, relative to the root
+        final boolean directory;
+        final long oldSize;
+        final long newSize;
+
+        Difference(Change change, String path, boolean directory, long oldSize, long newSize) {
+            this.change = change;
+            this.path = path;
+            this.directory = directory;
+            this.oldSize = oldSize;
+            this.newSize = newSize;
+        }
+
+        long delta() {
+            return newSize - oldSize;
+        }
+    }
+
+    /**
+     * Totals of a diff, independent of how many differences were printed.
+     */
+    static final class DiffSummary {
+        final long[] counts = new long[Change.values().length];
+        String oldRoot;
+        String newRoot;
+        long oldEntries;
+        long newEntries;
+        long netBytes;
+        long unlistedDirectories; // present on both sides but not compared below
+    }
+
+    private TreeSnapshot() {
+    }
+
+    /**
+     * Writes tree (rooted at rootPath) to file via a temp file and an atomic
+     * move.
+     *
+     * @return number of entries written
+     */
+    static long write(Path file, DirectoryItem tree, String rootPath) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        // Unique per save, so concurrent saves to one file never share a temp file
+        Path tmp = Files.createTempFile(parent, file.getFileName() + ".", ".tmp");
+        long count = 0;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(rootPath);
+
+            byte[] previous = new byte[0];
+            int previousLength = 0;
+            ArrayDeque<Frame> stack = new ArrayDeque<>();
+            stack.push(new Frame(new byte[0], tree));
+            while (!stack.isEmpty()) {
+                Frame f = stack.peek();
+                if (f.next == f.children.length) {
+                    stack.pop();
+                    continue;
+                }
+                Child c = f.children[f.next++];
+                byte[] path = f.prefix.length == 0 ? c.name : join(f.prefix, c.name);
+                boolean dir = c.item instanceof DirectoryItem;
+
+                int shared = 0;
+                int max = Math.min(previousLength, path.length);
+                while (shared < max && previous[shared] == path[shared])
+                    shared++;
+                out.writeByte(dir ? FLAG_DIRECTORY | (((DirectoryItem) c.item).isListed() ? FLAG_LISTED : 0) : 0);
+                writeVarLong(out, shared);
+                writeVarLong(out, path.length - shared);
+                out.write(path, shared, path.length - shared);
+                writeVarLong(out, c.item.getSize());
+                writeVarLong(out, c.item.getLastModifiedMillis());
+                previous = path;
+                previousLength = path.length;
+                count++;
+
+                if (dir)
+                    stack.push(new Frame(path, (DirectoryItem) c.item)); // children follow their parent
+            }
+            out.writeByte(END);
+            out.writeLong(count);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private static final class Child {
+        final byte[] name;
+        final FileSystemItem item;
+
+        Child(FileSystemItem item) {
+            this.name = item.getName().getBytes(StandardCharsets.UTF_8);
+            this.item = item;
+        }
+    }
+
+    private static final class Frame {
+        final byte[] prefix;
+        final Child[] children;
+        int next;
+
+        Frame(byte[] prefix, DirectoryItem dir) {
+            this.prefix = prefix;
+            GenericList<FileSystemItem> items = dir.getChildren();
+            children = new Child[items.size()];
+            for (int i = 0; i < children.length; i++)
+                children[i] = new Child(items.get(i));
+            Arrays.sort(children, (a, b) -> Arrays.compareUnsigned(a.name, b.name));
+        }
+    }
+
+    private static byte[] join(byte[] prefix, byte[] name) {
+        byte[] path = Arrays.copyOf(prefix, prefix.length + 1 + name.length);
+        System.arraycopy(name, 0, path, prefix.length + 1, name.length); // path[prefix.length] is the 0 separator
+        return path;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Streams the records of one snapshot in path order. The current path is
+     * held in a reused buffer, so memory is independent of the snapshot size.
+     */
+    static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final String root;
+        private byte[] path = new byte[256];
+        private int pathLength;
+        private boolean directory;
+        private boolean listed;
+        private long size;
+        private long mtime;
+        private long read;
+
+        Reader(Path file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+            try {
+                byte[] magic = new byte[MAGIC.length];
+                in.readFully(magic);
+                if (!Arrays.equals(magic, MAGIC))
+                    throw new IOException("Not a SysOps snapshot: " + file);
+                int version = in.readInt();
+                if (version != VERSION)
+                    throw new IOException("Unsupported snapshot version " + version);
+                root = in.readUTF();
+            } catch (IOException e) {
+                in.close();
+                throw e instanceof EOFException ? new IOException("Truncated snapshot: " + file) : e;
+            }
+        }
+
+        String root() {
+            return root;
+        }
+
+        /**
+         * Advances to the next record.
+         *
+         * @return false at the end of the snapshot
+         */
+        boolean next() throws IOException {
+            int flags = in.readUnsignedByte();
+            if (flags == END)
+                return false;
+            int shared = (int) readVarLong(in);
+            int suffix = (int) readVarLong(in);
+            if (shared > pathLength)
+                throw new IOException("Corrupt snapshot record");
+            if (shared + suffix > path.length)
+                path = Arrays.copyOf(path, Math.max(path.length * 2, shared + suffix));
+            in.readFully(path, shared, suffix);
+            pathLength = shared + suffix;
+            directory = (flags & FLAG_DIRECTORY) != 0;
+            listed = (flags & FLAG_LISTED) != 0;
+            size = readVarLong(in);
+            mtime = readVarLong(in);
+            read++;
+            return true;
+        }
+
+        /**
+         * Advances past every record below the directory dir[0..length).
+         *
+         * @return false at the end of the snapshot
+         */
+        boolean skipBelow(byte[] dir, int length) throws IOException {
+            while (next()) {
+                boolean below = pathLength > length && path[length] == 0
+                        && Arrays.equals(path, 0, length, dir, 0, length);
+                if (!below)
+                    return true;
+            }
+            return false;
+        }
+
+        long recordsRead() {
+            return read;
+        }
+
+        String path() {
+            return new String(path, 0, pathLength, StandardCharsets.UTF_8).replace('\0', '/');
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Merge-joins two snapshots, passing every difference to sink in path
+     * order. Directories are reported only when added or removed; their size
+     * is only meaningful for scanned subtree totals. Below a directory that is
+     * unlisted on either side nothing is compared.
+     */
+    static DiffSummary diff(Path oldFile, Path newFile, Consumer<Difference> sink) throws IOException {
+        DiffSummary summary = new DiffSummary();
+        try (Reader a = new Reader(oldFile); Reader b = new Reader(newFile)) {
+            summary.oldRoot = a.root();
+            summary.newRoot = b.root();
+            boolean hasA = a.next(), hasB = b.next();
+            while (hasA || hasB) {
+                int cmp = !hasA ? 1 : !hasB ? -1
+                        : Arrays.compareUnsigned(a.path, 0, a.pathLength, b.path, 0, b.pathLength);
+                if (cmp < 0) {
+                    report(summary, sink, Change.REMOVED, a, a.size, 0);
+                    hasA = a.next();
+                } else if (cmp > 0) {
+                    report(summary, sink, Change.ADDED, b, 0, b.size);
+                    hasB = b.next();
+                } else {
+                    if (a.directory != b.directory) { // replaced by another kind of entry
+                        report(summary, sink, Change.REMOVED, a, a.size, 0);
+                        report(summary, sink, Change.ADDED, b, 0, b.size);
+                    } else if (!b.directory) {
+                        if (b.size != a.size)
+                            report(summary, sink, b.size > a.size ? Change.GROWN : Change.SHRUNK, b, a.size, b.size);
+                        else if (b.mtime != a.mtime)
+                            report(summary, sink, Change.TOUCHED, b, a.size, b.size);
+                    } else if (!a.listed || !b.listed) {
+                        summary.unlistedDirectories++;
+                        byte[] dir = Arrays.copyOf(b.path, b.pathLength);
+                        hasA = a.skipBelow(dir, dir.length);
+                        hasB = b.skipBelow(dir, dir.length);
+                        continue;
+                    }
+                    hasA = a.next();
+                    hasB = b.next();
+                }
+            }
+            summary.oldEntries = a.recordsRead();
+            summary.newEntries = b.recordsRead();
+        }
+        return summary;
+    }
+
+    private static void report(DiffSummary summary, Consumer<Difference> sink, Change change, Reader at,
+            long oldSize, long newSize) {
+        summary.counts[change.ordinal()]++;
+        if (!at.directory)
+            summary.netBytes += newSize - oldSize;
+        sink.accept(new Difference(change, at.path(), at.directory, at.directory ? 0 : oldSize,
+                at.directory ? 0 : newSize));
+    }
+}
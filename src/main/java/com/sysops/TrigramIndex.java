@@ -0,0 +1,264 @@
+package com.sysops;
+
+import com.containers.GenericList;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Inverted trigram index over the names of every directory listing that has
+ * been loaded or scanned, for substring search across a whole subtree.
+ *
+ * Names are lower-cased into {@link TrigramPostings}; a query intersects the
+ * postings of its trigrams and only the surviving candidates are verified
+ * with a real substring test. Queries shorter than three characters fall back
+ * to a linear scan.
+ *
+ * Re-indexing a directory tombstones its previous entries, and watch updates
+ * add or tombstone single names without touching the rest of the directory.
+ * Once tombstones make up half of all ids the arrays and postings are rebuilt
+ * over the live entries only, so repeated updates stay bounded.
+ */
+class TrigramIndex {
+
+    private static final int MIN_COMPACT = 4096; // don't rebuild tiny indexes
+
+    private final TrigramPostings postings = new TrigramPostings();
+    private String[] names = new String[1024];
+    private int[] directoryOf = new int[1024];
+    private int entries;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    // Ids of one indexed directory: the contiguous range written when it was
+    // (re)indexed, plus names added one at a time since
+    private static final class Listing {
+        final int dirId;
+        int first;
+        int end;
+        int[] added = new int[0];
+        int addedCount;
+        Map<String, Integer> idByName; // live ids, built on the first single-name update
+
+        Listing(int dirId, int first, int end) {
+            this.dirId = dirId;
+            this.first = first;
+            this.end = end;
+        }
+    }
+
+    private final GenericList<Path> directories = new GenericList<>();
+    private final Map<Path, Listing> listings = new HashMap<>();
+
+    int size() {
+        return entries - removedCount;
+    }
+
+    int directoryCount() {
+        return listings.size();
+    }
+
+    /**
+     * Indexes (or re-indexes) one directory listing.
+     */
+    void indexDirectory(Path dir, ItemStore listing) {
+        dir = canonical(dir);
+        int dirId = beginDirectory(dir);
+        int first = entries;
+        for (int row = 0; row < listing.size(); row++) {
+            if (!listing.isDeleted(row))
+                addEntry(dirId, listing.name(row));
+        }
+        listings.put(dir, new Listing(dirId, first, entries));
+    }
+
+    /**
+     * Adds one name to an indexed directory (replacing an entry of the same
+     * name). Does nothing if dir has not been indexed.
+     */
+    void addName(Path dir, String name) {
+        Listing listing = listings.get(canonical(dir));
+        if (listing == null)
+            return;
+        remove(listing, name);
+        int id = addEntry(listing.dirId, name);
+        if (listing.addedCount == listing.added.length)
+            listing.added = Arrays.copyOf(listing.added, Math.max(4, listing.addedCount * 2));
+        listing.added[listing.addedCount++] = id;
+        listing.idByName.put(name, id);
+        compactIfSparse();
+    }
+
+    /**
+     * Drops one name from an indexed directory, if present.
+     */
+    void removeName(Path dir, String name) {
+        Listing listing = listings.get(canonical(dir));
+        if (listing != null && remove(listing, name))
+            compactIfSparse();
+    }
+
+    private boolean remove(Listing listing, String name) {
+        if (listing.idByName == null) {
+            listing.idByName = new HashMap<>();
+            for (int id = listing.first; id < listing.end; id++)
+                if (!removed.get(id))
+                    listing.idByName.put(names[id], id);
+            for (int i = 0; i < listing.addedCount; i++)
+                if (!removed.get(listing.added[i]))
+                    listing.idByName.put(names[listing.added[i]], listing.added[i]);
+        }
+        Integer id = listing.idByName.remove(name);
+        if (id == null)
+            return false;
+        removed.set(id);
+        removedCount++;
+        return true;
+    }
+
+    /**
+     * Indexes every listed directory of a scanned tree rooted at rootPath.
+     */
+    void indexTree(Path rootPath, DirectoryItem tree) {
+        ArrayDeque<Object[]> stack = new ArrayDeque<>();
+        stack.push(new Object[] { canonical(rootPath), tree });
+        while (!stack.isEmpty()) {
+            Object[] top = stack.pop();
+            Path path = (Path) top[0];
+            DirectoryItem dir = (DirectoryItem) top[1];
+            if (!dir.isListed())
+                continue;
+            int dirId = beginDirectory(path);
+            int first = entries;
+            GenericList<FileSystemItem> children = dir.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                FileSystemItem child = children.get(i);
+                addEntry(dirId, child.getName());
+                if (child instanceof DirectoryItem)
+                    stack.push(new Object[] { path.resolve(child.getName()), child });
+            }
+            listings.put(path, new Listing(dirId, first, entries));
+        }
+    }
+
+    private static Path canonical(Path dir) {
+        return dir.toAbsolutePath().normalize();
+    }
+
+    private int beginDirectory(Path dir) {
+        Listing old = listings.remove(dir);
+        if (old != null) {
+            for (int id = old.first; id < old.end; id++)
+                tombstone(id);
+            for (int i = 0; i < old.addedCount; i++)
+                tombstone(old.added[i]);
+            compactIfSparse();
+            return old.dirId;
+        }
+        directories.add(dir);
+        return directories.size() - 1;
+    }
+
+    private void tombstone(int id) {
+        if (!removed.get(id)) {
+            removed.set(id);
+            removedCount++;
+        }
+    }
+
+    private void compactIfSparse() {
+        if (removedCount >= MIN_COMPACT && removedCount * 2 >= entries)
+            compact();
+    }
+
+    // Renumbers the live ids densely, in their current order so every
+    // directory's range stays contiguous, and rebuilds the postings.
+    private void compact() {
+        // remap[id] is the new id of a live entry, or of the next live one
+        int[] remap = new int[entries + 1];
+        int live = 0;
+        for (int id = 0; id < entries; id++) {
+            remap[id] = live;
+            if (removed.get(id))
+                continue;
+            names[live] = names[id];
+            directoryOf[live] = directoryOf[id];
+            live++;
+        }
+        remap[entries] = live;
+        Arrays.fill(names, live, entries, null);
+        for (Listing listing : listings.values()) {
+            listing.first = remap[listing.first];
+            listing.end = remap[listing.end];
+            int kept = 0;
+            for (int i = 0; i < listing.addedCount; i++)
+                if (!removed.get(listing.added[i]))
+                    listing.added[kept++] = remap[listing.added[i]];
+            listing.addedCount = kept;
+            listing.idByName = null;
+        }
+        entries = live;
+        removed.clear();
+        removedCount = 0;
+        int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, live)) * 2);
+        if (capacity < names.length) {
+            names = Arrays.copyOf(names, capacity);
+            directoryOf = Arrays.copyOf(directoryOf, capacity);
+        }
+        postings.clear();
+        for (int id = 0; id < entries; id++)
+            postings.add(names[id].toLowerCase(Locale.ROOT), id);
+    }
+
+    private int addEntry(int dirId, String name) {
+        if (entries == names.length) {
+            names = Arrays.copyOf(names, entries * 2);
+            directoryOf = Arrays.copyOf(directoryOf, entries * 2);
+        }
+        int id = entries++;
+        names[id] = name;
+        directoryOf[id] = dirId;
+        postings.add(name.toLowerCase(Locale.ROOT), id);
+        return id;
+    }
+
+    /**
+     * Streams matching paths to sink, stopping after limit matches.
+     *
+     * @param under         only report entries at or below this directory (null
+     *                      for everywhere)
+     * @param caseSensitive verify candidates case-sensitively (the trigram
+     *                      filter itself is always case-insensitive)
+     * @return number of matches reported
+     */
+    int search(String query, Path under, boolean caseSensitive, int limit, Consumer<Path> sink) {
+        if (query.isEmpty() || limit <= 0)
+            return 0;
+        if (under != null)
+            under = canonical(under);
+        String lower = query.toLowerCase(Locale.ROOT);
+        int[] candidates = lower.length() >= 3 ? postings.candidates(lower) : null;
+        int n = candidates != null ? candidates.length : entries;
+        int found = 0;
+        for (int k = 0; k < n && found < limit; k++) {
+            int id = candidates != null ? candidates[k] : k;
+            if (removed.get(id))
+                continue;
+            String name = names[id];
+            boolean match = caseSensitive ? name.contains(query) : name.toLowerCase(Locale.ROOT).contains(lower);
+            if (!match)
+                continue;
+            Path dir = directories.get(directoryOf[id]);
+            if (under != null && !dir.startsWith(under))
+                continue;
+            sink.accept(dir.resolve(name));
+            found++;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,112 @@
+package com.sysops;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Trigram to posting-list map shared by the name index and the history log.
+ * Every overlapping 3-character trigram of an entry's text maps to a sorted
+ * int[] of entry ids; ids must be added in increasing order, which keeps each
+ * list sorted by plain appending.
+ */
+class TrigramPostings {
+
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id)
+                return; // trigram repeated within one entry
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Indexes text (already case-folded by the caller) under id.
+     */
+    void add(String text, int id) {
+        for (int i = 0; i + 3 <= text.length(); i++)
+            postings.computeIfAbsent(trigram(text, i), k -> new Postings()).add(id);
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * Ids whose text contains every trigram of q (ascending): a superset of
+     * the ids containing q, to be verified by the caller. q must be at least
+     * three characters.
+     */
+    int[] candidates(String q) {
+        Postings[] lists = new Postings[q.length() - 2];
+        int count = 0;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            Postings p = postings.get(trigram(q, i));
+            if (p == null)
+                return new int[0]; // a trigram nobody has: no matches
+            boolean dup = false;
+            for (int j = 0; j < count; j++)
+                dup |= lists[j] == p;
+            if (!dup)
+                lists[count++] = p;
+        }
+        Arrays.sort(lists, 0, count, (a, b) -> Integer.compare(a.size, b.size));
+        int[] acc = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int accSize = acc.length;
+        for (int j = 1; j < count && accSize > 0; j++)
+            accSize = intersect(acc, accSize, lists[j].ids, lists[j].size);
+        return Arrays.copyOf(acc, accSize);
+    }
+
+    /**
+     * Intersects sorted a[0..na) with sorted b[0..nb) into a; returns the new
+     * length. Gallops through b when it is much longer than a.
+     */
+    static int intersect(int[] a, int na, int[] b, int nb) {
+        int out = 0;
+        if ((long) na * 16 < nb) {
+            int lo = 0;
+            for (int i = 0; i < na && lo < nb; i++) {
+                int v = a[i];
+                int step = 1, hi = lo;
+                while (hi < nb && b[hi] < v) {
+                    lo = hi + 1;
+                    hi += step;
+                    step <<= 1;
+                }
+                int pos = Arrays.binarySearch(b, lo, Math.min(hi + 1, nb), v);
+                if (pos >= 0) {
+                    a[out++] = v;
+                    lo = pos + 1;
+                } else {
+                    lo = -pos - 1;
+                }
+            }
+            return out;
+        }
+        int i = 0, j = 0;
+        while (i < na && j < nb) {
+            if (a[i] < b[j])
+                i++;
+            else if (a[i] > b[j])
+                j++;
+            else {
+                a[out++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,207 @@
+package com.containers;
+
+import java.util.Arrays;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress harness for the lock-free containers: many producers and consumers
+ * hammer one instance at once, then the consumed values are checked against
+ * what the containers promise.
+ *
+ * Every value encodes (producer, sequence). The queue must hand each value to
+ * exactly one consumer, and each consumer must see a given producer's values
+ * in increasing order (FIFO per producer). The stack must also deliver every
+ * value exactly once. The work-stealing deque has one owner that pushes and
+ * pops while thieves steal: every value must be taken by exactly one of them.
+ *
+ * Run with {@code make stress}, optionally {@code STRESS_ARGS="<items> <rounds>"}.
+ * Exits with status 1 if any check failed.
+ */
+public class ConcurrentContainersStress {
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 4;
+    private static final int THIEVES = 3;
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 200_000; // per producer
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            queue(items);
+            stack(items);
+            deque(items * PRODUCERS);
+            System.out.printf("round %d: %d ms%n", round, (System.nanoTime() - start) / 1_000_000);
+        }
+        if (failures > 0) {
+            System.out.println(failures + " violation(s)");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static long value(int producer, int seq) {
+        return ((long) producer << 32) | seq;
+    }
+
+    private static synchronized void check(boolean ok, String what) {
+        if (!ok) {
+            failures++;
+            System.out.println("FAIL: " + what);
+        }
+    }
+
+    // Marks every consumed value; reports duplicates and values never seen
+    private static final class Ledger {
+        private final byte[][] seen;
+
+        Ledger(int producers, int items) {
+            seen = new byte[producers][items];
+        }
+
+        synchronized boolean take(long v) {
+            byte[] row = seen[(int) (v >>> 32)];
+            return row[(int) v]++ == 0;
+        }
+
+        void verify(String container) {
+            long missing = 0;
+            for (byte[] row : seen)
+                for (byte b : row)
+                    if (b == 0)
+                        missing++;
+            check(missing == 0, container + ": " + missing + " values never consumed");
+        }
+    }
+
+    private static void queue(int items) throws InterruptedException {
+        ConcurrentQueue<Long> queue = new ConcurrentQueue<>();
+        Ledger ledger = new Ledger(PRODUCERS, items);
+        AtomicLong consumed = new AtomicLong();
+        long total = (long) PRODUCERS * items;
+        CyclicBarrier go = new CyclicBarrier(PRODUCERS + CONSUMERS);
+        Thread[] threads = new Thread[PRODUCERS + CONSUMERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                await(go);
+                for (int i = 0; i < items; i++)
+                    queue.enqueue(value(producer, i));
+            });
+        }
+        for (int c = 0; c < CONSUMERS; c++) {
+            threads[PRODUCERS + c] = new Thread(() -> {
+                await(go);
+                int[] last = new int[PRODUCERS];
+                Arrays.fill(last, -1);
+                while (consumed.get() < total) {
+                    Long v = queue.poll();
+                    if (v == null)
+                        continue;
+                    consumed.incrementAndGet();
+                    int producer = (int) (v >>> 32), seq = (int) (long) v;
+                    check(seq > last[producer], "queue: producer " + producer + " out of order");
+                    last[producer] = seq;
+                    check(ledger.take(v), "queue: value consumed twice");
+                }
+            });
+        }
+        runAll(threads);
+        ledger.verify("queue");
+        check(queue.isEmpty() && queue.size() == 0, "queue: not empty after draining");
+    }
+
+    private static void stack(int items) throws InterruptedException {
+        ConcurrentStack<Long> stack = new ConcurrentStack<>();
+        Ledger ledger = new Ledger(PRODUCERS, items);
+        AtomicLong consumed = new AtomicLong();
+        long total = (long) PRODUCERS * items;
+        CyclicBarrier go = new CyclicBarrier(PRODUCERS + CONSUMERS);
+        Thread[] threads = new Thread[PRODUCERS + CONSUMERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                await(go);
+                for (int i = 0; i < items; i++)
+                    stack.push(value(producer, i));
+            });
+        }
+        for (int c = 0; c < CONSUMERS; c++) {
+            threads[PRODUCERS + c] = new Thread(() -> {
+                await(go);
+                while (consumed.get() < total) {
+                    Long v = stack.tryPop();
+                    if (v == null)
+                        continue;
+                    consumed.incrementAndGet();
+                    check(ledger.take(v), "stack: value consumed twice");
+                }
+            });
+        }
+        runAll(threads);
+        ledger.verify("stack");
+        check(stack.isEmpty() && stack.size() == 0, "stack: not empty after draining");
+    }
+
+    private static void deque(int items) throws InterruptedException {
+        WorkStealingDeque<Long> deque = new WorkStealingDeque<>();
+        Ledger ledger = new Ledger(1, items);
+        AtomicLong consumed = new AtomicLong();
+        CyclicBarrier go = new CyclicBarrier(1 + THIEVES);
+        Thread[] threads = new Thread[1 + THIEVES];
+        threads[0] = new Thread(() -> {
+            await(go);
+            // Owner: push in bursts, pop some back, leaving the rest to thieves
+            for (int i = 0; i < items; i++) {
+                deque.push(value(0, i));
+                if (i % 3 == 2) {
+                    Long v = deque.tryPop();
+                    if (v != null) {
+                        consumed.incrementAndGet();
+                        check(ledger.take(v), "deque: value taken twice (pop)");
+                    }
+                }
+            }
+            for (Long v = deque.tryPop(); v != null; v = deque.tryPop()) {
+                consumed.incrementAndGet();
+                check(ledger.take(v), "deque: value taken twice (pop)");
+            }
+        });
+        for (int t = 0; t < THIEVES; t++) {
+            threads[1 + t] = new Thread(() -> {
+                await(go);
+                while (consumed.get() < items) {
+                    Long v = deque.steal();
+                    if (v == null) {
+                        if (!threads[0].isAlive() && deque.isEmpty())
+                            return;
+                        continue;
+                    }
+                    consumed.incrementAndGet();
+                    check(ledger.take(v), "deque: value taken twice (steal)");
+                }
+            });
+        }
+        runAll(threads);
+        ledger.verify("deque");
+        check(deque.isEmpty(), "deque: not empty after draining");
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException | BrokenBarrierException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void runAll(Thread[] threads) throws InterruptedException {
+        for (Thread t : threads)
+            t.start();
+        for (Thread t : threads)
+            t.join();
+    }
+}